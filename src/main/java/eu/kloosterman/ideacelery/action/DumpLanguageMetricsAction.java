@@ -0,0 +1,52 @@
+package eu.kloosterman.ideacelery.action;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbAware;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the current language metrics snapshot to a file in the IDE log directory.
+ */
+public class DumpLanguageMetricsAction extends AnAction implements DumbAware {
+
+    private static final Logger LOG = Logger.getInstance(DumpLanguageMetricsAction.class);
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Path file = Path.of(PathManager.getLogPath(), "ideacelery-metrics-" + System.currentTimeMillis() + ".txt");
+
+        NotificationType type = NotificationType.INFORMATION;
+        String message;
+        try {
+            Files.writeString(file, LanguageMetrics.getInstance().snapshot(), StandardCharsets.UTF_8);
+            message = MyBundle.message("action.metrics.dumped", file.toString());
+        } catch (IOException ex) {
+            LOG.warn(ex);
+            type = NotificationType.ERROR;
+            message = MyBundle.message("action.metrics.dump.failed", ex.getMessage());
+        }
+
+        NotificationGroupManager.getInstance().getNotificationGroup(FindUnusedLanguageKeysAction.NOTIFICATION_GROUP)
+            .createNotification(message, type)
+            .notify(e.getProject());
+    }
+
+    @NotNull
+    @Override
+    public ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
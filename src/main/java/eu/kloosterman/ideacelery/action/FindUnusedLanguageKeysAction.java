@@ -0,0 +1,84 @@
+package eu.kloosterman.ideacelery.action;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import eu.kloosterman.ideacelery.language.LanguageKeyLocation;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageUsages;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lists every key of the english language files that no Language::get() call uses.
+ * The set difference runs in a cancellable background task.
+ */
+public class FindUnusedLanguageKeysAction extends AnAction {
+
+    public static final String NOTIFICATION_GROUP = "Celery Language";
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) {
+            return;
+        }
+
+        new Task.Backgroundable(project, MyBundle.message("action.find.unused.keys.progress"), true) {
+            private List<LanguageKeyLocation> unused = Collections.emptyList();
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                unused = ReadAction.nonBlocking(() -> {
+                    LanguageModel model = LanguageModelService.getInstance(project).getModel();
+                    return LanguageUsages.findUnusedKeys(project, model, LanguageUsages.getUsedKeys(project), indicator);
+                }).inSmartMode(project).wrapProgress(indicator).executeSynchronously();
+            }
+
+            @Override
+            public void onSuccess() {
+                showResult(project, unused);
+            }
+        }.queue();
+    }
+
+    private static void showResult(@NotNull Project project, @NotNull List<LanguageKeyLocation> unused) {
+        if (unused.isEmpty()) {
+            NotificationGroupManager.getInstance().getNotificationGroup(NOTIFICATION_GROUP)
+                .createNotification(MyBundle.message("action.find.unused.keys.none"), NotificationType.INFORMATION)
+                .notify(project);
+            return;
+        }
+
+        JBPopupFactory.getInstance().createPopupChooserBuilder(unused)
+            .setTitle(MyBundle.message("action.find.unused.keys.title", unused.size()))
+            .setNamerForFiltering(LanguageKeyLocation::toString)
+            .setItemChosenCallback(location -> new OpenFileDescriptor(project, location.getFile(), location.getOffset()).navigate(true))
+            .createPopup()
+            .showCenteredInCurrentWindow(project);
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getProject() != null);
+    }
+
+    @NotNull
+    @Override
+    public ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
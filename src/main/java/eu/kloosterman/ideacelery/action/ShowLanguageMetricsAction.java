@@ -0,0 +1,27 @@
+package eu.kloosterman.ideacelery.action;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.ui.Messages;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Shows the current language metrics snapshot.
+ */
+public class ShowLanguageMetricsAction extends AnAction implements DumbAware {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Messages.showInfoMessage(e.getProject(), LanguageMetrics.getInstance().snapshot(), MyBundle.message("action.metrics.title"));
+    }
+
+    @NotNull
+    @Override
+    public ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
@@ -0,0 +1,158 @@
+package eu.kloosterman.ideacelery.batch;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.php.lang.PhpFileType;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.index.LanguageUsageIndex;
+import eu.kloosterman.ideacelery.language.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs the unknown key, missing translation and unused key checks over a whole project,
+ * with the same rules as the inspections. Call sites are read from {@link LanguageUsageIndex}
+ * in parallel, one short read action per file, so no PHP file is parsed.
+ */
+public final class LanguageAnalysis {
+
+    private final Project project;
+    private final LanguageModelService service;
+    private final VirtualFile projectDir;
+
+    public LanguageAnalysis(@NotNull Project project) {
+        this.project = project;
+        this.service = LanguageModelService.getInstance(project);
+        this.projectDir = ProjectUtil.guessProjectDir(project);
+    }
+
+    /**
+     * Analyze the project; must not be called from a read action, as it waits for smart mode.
+     */
+    @NotNull
+    public LanguageReport run(@NotNull ProgressIndicator indicator) {
+        long start = System.nanoTime();
+
+        List<VirtualFile> files = ReadAction.nonBlocking(this::findCallingFiles)
+            .inSmartMode(project)
+            .wrapProgress(indicator)
+            .executeSynchronously();
+
+        Queue<LanguageReport.Problem> problems = new ConcurrentLinkedQueue<>();
+        DumbService dumbService = DumbService.getInstance(project);
+        boolean completed = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, file -> {
+            dumbService.runReadActionInSmartMode(() -> checkCalls(file, problems));
+            return true;
+        });
+        if (!completed) {
+            throw new ProcessCanceledException();
+        }
+
+        ReadAction.nonBlocking(() -> checkUnusedKeys(problems, indicator))
+            .inSmartMode(project)
+            .wrapProgress(indicator)
+            .executeSynchronously();
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        return new LanguageReport(project.getName(), files.size(), durationMillis, problems);
+    }
+
+    /**
+     * PHP files of the project outside the language directories.
+     */
+    @NotNull
+    private List<VirtualFile> findCallingFiles() {
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile file : FileTypeIndex.getFiles(PhpFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+            if (!LanguageKeyIndex.isLanguagePartFile(file)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private void checkCalls(@NotNull VirtualFile file, @NotNull Queue<LanguageReport.Problem> problems) {
+        if (!file.isValid()) {
+            return;
+        }
+
+        Map<LanguageKey, List<Integer>> usages = FileBasedIndex.getInstance().getFileData(LanguageUsageIndex.NAME, file, project);
+        if (usages.isEmpty()) {
+            return;
+        }
+
+        LanguageModel model = service.getModel(file);
+        if (model.getTables().isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<LanguageKey, List<Integer>> usage : usages.entrySet()) {
+            LanguageKey key = usage.getKey();
+            if (key.getCategory().isEmpty()) {
+                continue;
+            }
+
+            String type = null;
+            List<String> locales = model.getMissingLocales(key);
+            if (isUnknown(model, key)) {
+                type = LanguageReport.UNKNOWN_KEY;
+                locales = null;
+            } else if (!locales.isEmpty()) {
+                type = LanguageReport.MISSING_TRANSLATION;
+            }
+
+            if (type != null) {
+                for (Integer offset : usage.getValue()) {
+                    problems.add(new LanguageReport.Problem(type, key.toString(), getPath(file), getLine(file, offset), locales));
+                }
+            }
+        }
+    }
+
+    /**
+     * Unknown category, or unknown item of a known category; an unknown category is only
+     * reported on the category argument, as the inspection does.
+     */
+    private static boolean isUnknown(@NotNull LanguageModel model, @NotNull LanguageKey key) {
+        String item = key.getItem();
+        if (item == null) {
+            return !model.hasCategory(key.getCategory());
+        }
+        return !item.isEmpty() && model.hasCategory(key.getCategory()) && !model.hasItem(key.getCategory(), item);
+    }
+
+    private void checkUnusedKeys(@NotNull Queue<LanguageReport.Problem> problems, @NotNull ProgressIndicator indicator) {
+        Set<LanguageKey> usedKeys = LanguageUsages.getUsedKeys(project);
+        for (LanguageKeyLocation location : LanguageUsages.findUnusedKeys(project, service.getModel(), usedKeys, indicator)) {
+            problems.add(new LanguageReport.Problem(LanguageReport.UNUSED_KEY, location.getKey().toString(), getPath(location.getFile()), getLine(location.getFile(), location.getOffset()), null));
+        }
+    }
+
+    @NotNull
+    private String getPath(@NotNull VirtualFile file) {
+        String path = projectDir != null ? VfsUtilCore.getRelativePath(file, projectDir) : null;
+        return path != null ? path : file.getPath();
+    }
+
+    /**
+     * One based line of the offset, 0 when the file cannot be loaded.
+     */
+    private static int getLine(@NotNull VirtualFile file, int offset) {
+        Document document = FileDocumentManager.getInstance().getDocument(file);
+        return document != null && offset <= document.getTextLength() ? document.getLineNumber(offset) + 1 : 0;
+    }
+}
@@ -0,0 +1,87 @@
+package eu.kloosterman.ideacelery.batch;
+
+import com.intellij.ide.impl.OpenProjectTask;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ex.ProjectManagerEx;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Headless entry point for CI:
+ * <pre>idea ideacelery-language-check &lt;project dir&gt; [&lt;report.json&gt;]</pre>
+ * Opens the project, waits for indexing, runs the {@link LanguageAnalysis} and writes the
+ * JSON report to the given file or to stdout. Exits with 0 when no problem was found, 1
+ * when there are problems and 2 when the analysis could not run.
+ */
+public class LanguageCheckStarter implements ApplicationStarter {
+
+    private static final Logger LOG = Logger.getInstance(LanguageCheckStarter.class);
+
+    private static final int EXIT_CLEAN = 0;
+    private static final int EXIT_PROBLEMS = 1;
+    private static final int EXIT_ERROR = 2;
+
+    @Override
+    public int getRequiredModality() {
+        // waits for indexing, which must not block the EDT
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        // the first argument is the command name itself
+        if (args.size() < 2 || args.size() > 3) {
+            System.err.println("Usage: ideacelery-language-check <project dir> [<report.json>]");
+            System.exit(EXIT_ERROR);
+        }
+
+        Path projectPath = Path.of(args.get(1)).toAbsolutePath().normalize();
+        Path reportPath = args.size() > 2 ? Path.of(args.get(2)).toAbsolutePath() : null;
+
+        int exitCode;
+        try {
+            exitCode = run(projectPath, reportPath);
+        } catch (Throwable e) {
+            LOG.warn("Language check failed for " + projectPath, e);
+            System.err.println("Language check failed: " + e);
+            exitCode = EXIT_ERROR;
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(@NotNull Path projectPath, @Nullable Path reportPath) throws IOException {
+        Project project = ProjectManagerEx.getInstanceEx().openProject(projectPath, OpenProjectTask.build());
+        if (project == null) {
+            System.err.println("Cannot open project " + projectPath);
+            return EXIT_ERROR;
+        }
+
+        try {
+            ProgressIndicator indicator = new EmptyProgressIndicator();
+            LanguageReport report = ProgressManager.getInstance().runProcess(() -> new LanguageAnalysis(project).run(indicator), indicator);
+
+            if (reportPath != null) {
+                Files.writeString(reportPath, report.toJson(), StandardCharsets.UTF_8);
+                System.out.println(report.getProblems().size() + " language problem(s), report written to " + reportPath);
+            } else {
+                System.out.println(report.toJson());
+            }
+            return report.getProblems().isEmpty() ? EXIT_CLEAN : EXIT_PROBLEMS;
+        } finally {
+            ApplicationManager.getApplication().invokeAndWait(() -> ProjectManager.getInstance().closeAndDispose(project));
+        }
+    }
+}
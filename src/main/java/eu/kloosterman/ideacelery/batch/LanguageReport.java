@@ -0,0 +1,68 @@
+package eu.kloosterman.ideacelery.batch;
+
+import com.google.gson.GsonBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Result of a {@link LanguageAnalysis}, written as JSON for CI. Problems are sorted by file
+ * and line so reports of the same tree can be diffed.
+ */
+public final class LanguageReport {
+
+    public static final String UNKNOWN_KEY = "unknown-key";
+    public static final String MISSING_TRANSLATION = "missing-translation";
+    public static final String UNUSED_KEY = "unused-key";
+
+    private final String project;
+    private final int filesAnalyzed;
+    private final long durationMillis;
+    private final Map<String, Integer> summary = new TreeMap<>();
+    private final List<Problem> problems;
+
+    public LanguageReport(@NotNull String project, int filesAnalyzed, long durationMillis, @NotNull Collection<Problem> problems) {
+        this.project = project;
+        this.filesAnalyzed = filesAnalyzed;
+        this.durationMillis = durationMillis;
+        this.problems = new ArrayList<>(problems);
+        this.problems.sort(Comparator.comparing((Problem problem) -> problem.file).thenComparingInt(problem -> problem.line).thenComparing(problem -> problem.key));
+
+        for (String type : List.of(UNKNOWN_KEY, MISSING_TRANSLATION, UNUSED_KEY)) {
+            summary.put(type, 0);
+        }
+        for (Problem problem : this.problems) {
+            summary.merge(problem.type, 1, Integer::sum);
+        }
+    }
+
+    @NotNull
+    public List<Problem> getProblems() {
+        return problems;
+    }
+
+    @NotNull
+    public String toJson() {
+        return new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(this);
+    }
+
+    /**
+     * A single finding; locales are only set for missing translations.
+     */
+    public static final class Problem {
+        private final String type;
+        private final String key;
+        private final String file;
+        private final int line;
+        private final List<String> locales;
+
+        public Problem(@NotNull String type, @NotNull String key, @NotNull String file, int line, @Nullable List<String> locales) {
+            this.type = type;
+            this.key = key;
+            this.file = file;
+            this.line = line;
+            this.locales = locales;
+        }
+    }
+}
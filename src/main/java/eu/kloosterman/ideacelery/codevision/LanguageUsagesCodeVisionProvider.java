@@ -0,0 +1,205 @@
+package eu.kloosterman.ideacelery.codevision;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.codeInsight.codeVision.CodeVisionAnchorKind;
+import com.intellij.codeInsight.codeVision.CodeVisionEntry;
+import com.intellij.codeInsight.codeVision.CodeVisionRelativeOrdering;
+import com.intellij.codeInsight.codeVision.settings.PlatformCodeVisionIds;
+import com.intellij.codeInsight.codeVision.ui.model.TextCodeVisionEntry;
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.codeInsight.daemon.impl.VisibleHighlightingPassFactory;
+import com.intellij.codeInsight.hints.codeVision.DaemonBoundCodeVisionProvider;
+import com.intellij.find.actions.ShowUsagesAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.UserDataHolderEx;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.language.LanguageUsages;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shows the number of Language::get() call sites above every category and item key of an
+ * english language file. Counts come from {@link LanguageUsages#countUsages} and are only
+ * computed for the keys in the visible part of the editor; they are cached per file until
+ * the next PSI change, so scrolling back does not query the index again. The daemon does not
+ * run on scrolling, so it is restarted once keys outside the counted range come into view.
+ */
+public class LanguageUsagesCodeVisionProvider implements DaemonBoundCodeVisionProvider {
+
+    private static final String ID = "ideacelery.language.usages";
+    private static final Key<TextRange> COUNTED_RANGE = Key.create("ideacelery.language.usages.counted.range");
+    private static final Key<Boolean> SCROLL_LISTENER = Key.create("ideacelery.language.usages.scroll.listener");
+
+    @NotNull
+    @Override
+    public List<Pair<TextRange, CodeVisionEntry>> computeForEditor(@NotNull Editor editor, @NotNull PsiFile file) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        if (virtualFile == null || !LanguageKeyIndex.isLanguagePartFile(virtualFile)) {
+            return Collections.emptyList();
+        }
+
+        Project project = file.getProject();
+        LanguageModel model = LanguageModelService.getInstance(project).getModel(file);
+        LanguageTable table = model.findLanguageTable(virtualFile);
+        if (table == null) {
+            return Collections.emptyList();
+        }
+
+        TextRange visibleRange = VisibleHighlightingPassFactory.calculateVisibleRange(editor);
+        editor.putUserData(COUNTED_RANGE, visibleRange);
+        if (editor instanceof UserDataHolderEx && ((UserDataHolderEx) editor).replace(SCROLL_LISTENER, null, Boolean.TRUE)) {
+            editor.getScrollingModel().addVisibleAreaListener(event -> restartWhenUncounted(editor));
+        }
+
+        CharSequence text = editor.getDocument().getCharsSequence();
+        Map<LanguageKey, Integer> counts = getCountCache(file);
+
+        List<Pair<TextRange, CodeVisionEntry>> entries = new ArrayList<>();
+        for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+            if (!virtualFile.equals(table.getFile(category.getKey()))) {
+                continue;
+            }
+
+            addEntry(entries, project, model, counts, text, visibleRange, LanguageKey.category(category.getKey()), category.getKey(), category.getValue().getOffset());
+            for (Map.Entry<String, Integer> item : category.getValue().getItems().entrySet()) {
+                addEntry(entries, project, model, counts, text, visibleRange, LanguageKey.item(category.getKey(), item.getKey()), item.getKey(), item.getValue());
+            }
+        }
+
+        return entries;
+    }
+
+    private void addEntry(@NotNull List<Pair<TextRange, CodeVisionEntry>> entries, @NotNull Project project, @NotNull LanguageModel model,
+                          @NotNull Map<LanguageKey, Integer> counts, @NotNull CharSequence text, @NotNull TextRange visibleRange,
+                          @NotNull LanguageKey key, @NotNull String name, int offset) {
+        TextRange range = TextRange.from(offset, name.length() + 2);
+        if (!visibleRange.intersects(range) || !isKeyLiteral(text, range, name)) {
+            return;
+        }
+
+        ProgressManager.checkCanceled();
+        Integer count = counts.get(key);
+        if (count == null) {
+            count = LanguageUsages.countUsages(project, model, key);
+            counts.put(key, count);
+        }
+
+        String label = MyBundle.message("codevision.language.usages", count);
+        entries.add(Pair.create(range, new TextCodeVisionEntry(label, ID, null, label, "", Collections.emptyList())));
+    }
+
+    @Override
+    public void handleClick(@NotNull Editor editor, @NotNull TextRange textRange, @NotNull CodeVisionEntry entry) {
+        Project project = editor.getProject();
+        if (project == null) {
+            return;
+        }
+
+        PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+        StringLiteralExpression literal = file != null
+            ? PsiTreeUtil.getParentOfType(file.findElementAt(textRange.getStartOffset()), StringLiteralExpression.class, false)
+            : null;
+        if (literal != null) {
+            ShowUsagesAction.startFindUsages(literal, JBPopupFactory.getInstance().guessBestPopupLocation(editor), editor);
+        }
+    }
+
+    /**
+     * Restart the daemon for the file of the editor when the visible part lies outside the
+     * range the shown counts were computed for; the daemon delay merges a burst of scrolling.
+     */
+    private static void restartWhenUncounted(@NotNull Editor editor) {
+        Project project = editor.getProject();
+        TextRange countedRange = editor.getUserData(COUNTED_RANGE);
+        if (project == null || project.isDisposed() || countedRange == null
+            || countedRange.contains(VisibleHighlightingPassFactory.calculateVisibleRange(editor))) {
+            return;
+        }
+
+        PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
+        if (file != null) {
+            // counted again on the next pass
+            editor.putUserData(COUNTED_RANGE, null);
+            DaemonCodeAnalyzer.getInstance(project).restart(file);
+        }
+    }
+
+    /**
+     * Usage counts of the keys of a language file, dropped on every PSI change since any
+     * Language::get() call may have been added or removed.
+     */
+    @NotNull
+    private static Map<LanguageKey, Integer> getCountCache(@NotNull PsiFile file) {
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(
+            new ConcurrentHashMap<LanguageKey, Integer>(),
+            PsiModificationTracker.getInstance(file.getProject())
+        ));
+    }
+
+    /**
+     * Whether the quoted key still starts at the indexed offset; the document can be ahead of the index.
+     */
+    private static boolean isKeyLiteral(@NotNull CharSequence text, @NotNull TextRange range, @NotNull String name) {
+        if (range.getEndOffset() > text.length()) {
+            return false;
+        }
+
+        char quote = text.charAt(range.getStartOffset());
+        return (quote == '\'' || quote == '"')
+            && text.charAt(range.getEndOffset() - 1) == quote
+            && name.contentEquals(text.subSequence(range.getStartOffset() + 1, range.getEndOffset() - 1));
+    }
+
+    @NotNull
+    @Override
+    public CodeVisionAnchorKind getDefaultAnchor() {
+        return CodeVisionAnchorKind.Default;
+    }
+
+    @NotNull
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @NotNull
+    @Override
+    public String getGroupId() {
+        return PlatformCodeVisionIds.USAGES.getKey();
+    }
+
+    @Nls
+    @NotNull
+    @Override
+    public String getName() {
+        return MyBundle.message("codevision.language.usages.name");
+    }
+
+    @NotNull
+    @Override
+    public List<CodeVisionRelativeOrdering> getRelativeOrderings() {
+        return Collections.emptyList();
+    }
+}
@@ -1,176 +1,135 @@
 package eu.kloosterman.ideacelery.completion;
 
 import com.intellij.codeInsight.completion.*;
+import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
-import com.intellij.openapi.fileTypes.FileType;
-import com.intellij.openapi.project.Project;
-import com.intellij.patterns.PlatformPatterns;
-import com.intellij.psi.PsiDirectory;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.search.FilenameIndex;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ProcessingContext;
-import com.jetbrains.php.lang.PhpFileType;
 import com.jetbrains.php.lang.parser.PhpElementTypes;
 import com.jetbrains.php.lang.patterns.PhpPatterns;
 import com.jetbrains.php.lang.psi.elements.*;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
+ * Dumb aware: while indexing, keys come from the language model snapshot of {@link LanguageModelService}.
+ *
  * @author Daniel Espendiller <daniel@espendiller.net>
  */
-public class ToolboxCompletionContributor extends CompletionContributor {
+public class ToolboxCompletionContributor extends CompletionContributor implements DumbAware {
+
+    public static final String COMPLETION_LIMIT_REGISTRY_KEY = "ideacelery.language.completion.limit";
+
+    private static final int TAIL_TEXT_LENGTH = 50;
 
     public ToolboxCompletionContributor() {
 
         extend(
             CompletionType.BASIC,
-            PlatformPatterns.psiElement(),
+            LanguagePatterns.languageGetArgumentLeaf(),
             new CompletionProvider<CompletionParameters>() {
                 @Override
                 protected void addCompletions(@NotNull CompletionParameters completionParameters, ProcessingContext processingContext, @NotNull CompletionResultSet completionResultSet) {
 
-                    PsiElement position = completionParameters.getPosition();
-
-                    Project project = position.getProject();
-                    List<String> arrCategories = getCategoriesForLanguageFiles(project);
-
-                    FileType fileType = position.getContainingFile().getFileType();
-                    if(!(fileType instanceof PhpFileType)) {
-                        return;
-                    }
-
-                    ParameterList parameterList = PsiTreeUtil.getParentOfType(position, ParameterList.class);
-                    if (parameterList == null) {
-                        return;
-                    }
-
-                    PsiElement context = parameterList.getContext();
-                    if (!(context instanceof FunctionReference)) {
-                        return;
-                    }
-
-                    Integer index = getCurrentParameterIndex(position.getParent());
-
-                    if(context instanceof MethodReference){
-                        MethodReference method = (MethodReference) context;
-                        ClassReference cls = (ClassReference) method.getClassReference();
-
-                        String strMethod = method.getName();
-                        String strClass = cls != null ? cls.getName() : null;
-
-                        if (!strMethod.equals("get")) {
-                            return;
-                        }
-
-                        if (!"Language".equals(strClass)) {
-                            return;
-                        }
-
-                        if (index == 0) {
-                            String cat = getCategoryValue(position.getParent());
-
-                            if (cat == null) {
-                                return;
-                            }
-
-                            List<String> arrItems = getItemsOfCategories(project, cat);
-
-                            for (String item: arrItems) {
-                                completionResultSet.addElement(LookupElementBuilder.create(item));
-                            }
-                        }
-
-                        if (index == 1) {
-                            for (String category: arrCategories) {
-                                completionResultSet.addElement(LookupElementBuilder.create(category));
-                            }
-                        }
+                    long start = System.nanoTime();
+                    try {
+                        addLanguageKeys(completionParameters.getPosition(), completionResultSet);
+                    } finally {
+                        LanguageMetrics.getInstance().record(LanguageMetrics.Timer.COMPLETION, start);
                     }
                 }
             }
         );
     }
 
-    private List<String> getItemsOfCategories(Project project, String findCategory) {
-        PsiFile @NotNull [] arrPsiFiles = FilenameIndex.getFilesByName(project, "english-utf-8.php", GlobalSearchScope.allScope(project));
-
-        List<String> arrReturn = new ArrayList<>();
-
-        for (PsiFile psiFile : arrPsiFiles) {
-            PsiDirectory psiDirectory = psiFile.getContainingDirectory();
-            if (psiDirectory.getName().equals("languages")) {
-
-                ArrayHashElement[] arrayHashElements = getArrayHashElements(psiFile);
-
-                assert arrayHashElements != null;
-                for (ArrayHashElement arrayHashElement: arrayHashElements) {
-                    PhpPsiElement child = arrayHashElement.getKey();
-                    if(child instanceof StringLiteralExpression) {
-                        String strCategory = ((StringLiteralExpression) child).getContents();
-                        if (strCategory.equals(findCategory)) {
-
-                            PhpPsiElement arrayHashElementValue = arrayHashElement.getValue();
-                            if(arrayHashElementValue instanceof ArrayCreationExpression) {
-                                PsiElement @NotNull [] xxx = arrayHashElementValue.getChildren();
-                                for (PsiElement psiElement: xxx) {
-                                    if (psiElement instanceof ArrayHashElement) {
-                                        PsiElement key = ((ArrayHashElement) psiElement).getKey();
-                                        if(key instanceof StringLiteralExpression) {
-                                            String str = ((StringLiteralExpression) key).getContents();
-                                            arrReturn.add(str);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    private void addLanguageKeys(PsiElement position, CompletionResultSet completionResultSet) {
+        // the pattern guarantees we are inside a string argument of Language::get()
+        Integer index = getCurrentParameterIndex(position.getParent());
+        if (index == null) {
+            return;
         }
 
-        return arrReturn;
-    }
+        if (index == 0) {
+            String cat = getCategoryValue(position.getParent());
 
-    @Nullable
-    private ArrayHashElement[] getArrayHashElements(PsiFile psiFile) {
-        GroupStatement groupStatement = PsiTreeUtil.getChildOfType(psiFile, GroupStatement.class);
-        Statement statement = PsiTreeUtil.getChildOfType(groupStatement, Statement.class);
-        AssignmentExpression assignmentExpression = PsiTreeUtil.getChildOfType(statement, AssignmentExpression.class);
-        ArrayCreationExpression arrayCreationExpression = PsiTreeUtil.getChildOfType(assignmentExpression, ArrayCreationExpression.class);
+            if (cat == null) {
+                return;
+            }
 
-        return PsiTreeUtil.getChildrenOfType(arrayCreationExpression, ArrayHashElement.class);
-    }
+            LanguageModel model = LanguageModelService.getInstance(position.getProject()).getModel(position);
+            addMatchingKeys(model.getItemStore(cat).getKeysPrefixFirst(completionResultSet.getPrefixMatcher().getPrefix()), completionResultSet, item -> model.getText(cat, item));
+        }
 
-    private List<String> getCategoriesForLanguageFiles(Project project) {
-        PsiFile @NotNull [] arrPsiFiles = FilenameIndex.getFilesByName(project, "english-utf-8.php", GlobalSearchScope.allScope(project));
+        if (index == 1) {
+            // categories are only requested once we know they are needed
+            addMatchingKeys(getCategoriesForLanguageFiles(position, completionResultSet.getPrefixMatcher()), completionResultSet, category -> null);
+        }
+    }
 
-        List<String> arrReturn = new ArrayList<>();
+    /**
+     * Stream the keys that match the typed prefix into the result, checking for cancellation on
+     * the way. Once the configured limit is reached we stop and let the next typed character
+     * restart completion with a narrower prefix.
+     */
+    private static void addMatchingKeys(Collection<String> keys, CompletionResultSet completionResultSet, Function<String, String> texts) {
+        int limit = Registry.intValue(COMPLETION_LIMIT_REGISTRY_KEY);
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+
+        boolean limitReached = addMatchingKeys(keys, completionResultSet.getPrefixMatcher(), limit, texts, element -> {
+            metrics.increment(LanguageMetrics.Counter.COMPLETION_ITEM);
+            completionResultSet.addElement(element);
+        });
+
+        if (limitReached) {
+            metrics.increment(LanguageMetrics.Counter.COMPLETION_LIMIT_REACHED);
+            completionResultSet.restartCompletionOnAnyPrefixChange();
+        }
+    }
 
-        for (PsiFile psiFile : arrPsiFiles) {
-            PsiDirectory psiDirectory = psiFile.getContainingDirectory();
-            if (psiDirectory.getName().equals("languages")) {
+    /**
+     * Pass a lookup element for every key accepted by the matcher to the consumer, up to the limit,
+     * showing the text of every key as tail text; only the accepted keys are looked up.
+     *
+     * @return true when the limit was reached before all keys were seen
+     */
+    public static boolean addMatchingKeys(Collection<String> keys, PrefixMatcher prefixMatcher, int limit, Function<String, String> texts, Consumer<LookupElement> consumer) {
+        int count = 0;
+        for (String key : keys) {
+            ProgressManager.checkCanceled();
+
+            if (!prefixMatcher.prefixMatches(key)) {
+                continue;
+            }
 
-                ArrayHashElement[] arrayHashElements = getArrayHashElements(psiFile);
+            LookupElementBuilder element = LookupElementBuilder.create(key);
+            String text = texts.apply(key);
+            if (text != null) {
+                element = element.withTailText(" " + StringUtil.shortenTextWithEllipsis(text, TAIL_TEXT_LENGTH, 0), true);
+            }
+            consumer.accept(element);
 
-                assert arrayHashElements != null;
-                for (ArrayHashElement arrayHashElement: arrayHashElements) {
-                    PhpPsiElement child = arrayHashElement.getKey();
-                    if(child instanceof StringLiteralExpression) {
-                        String strCategory = ((StringLiteralExpression) child).getContents();
-                        arrReturn.add(strCategory);
-                    }
-                }
+            if (++count >= limit) {
+                return true;
             }
         }
 
-        return arrReturn;
+        return false;
+    }
+
+    private Collection<String> getCategoriesForLanguageFiles(PsiElement position, PrefixMatcher prefixMatcher) {
+        return LanguageModelService.getInstance(position.getProject()).getModel(position).getCategoryStore().getKeysPrefixFirst(prefixMatcher.getPrefix());
     }
 
     protected String getCategoryValue(PsiElement psiElement) {
@@ -186,12 +145,13 @@ public class ToolboxCompletionContributor extends CompletionContributor {
 
         PsiElement[] parameters = parameterList.getParameters();
 
-        if (parameters[1] == null) {
+        if (parameters.length < 2 || parameters[1] == null) {
             return null;
         }
 
-        String strReturn = parameters[1].getText();
-        strReturn = strReturn.replaceAll("^\"|\"$", "");
+        String strReturn = parameters[1] instanceof StringLiteralExpression
+            ? ((StringLiteralExpression) parameters[1]).getContents()
+            : parameters[1].getText().replaceAll("^\"|\"$", "");
 
         if (strReturn.equals("")) {
             return null;
@@ -0,0 +1,105 @@
+package eu.kloosterman.ideacelery.diagnostics;
+
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application wide timings and counters of the language support, shown by the
+ * diagnostic actions and dumped as a plain text snapshot.
+ */
+public final class LanguageMetrics {
+
+    public enum Timer {
+        COMPLETION("completion"),
+        RESOLVE("resolve"),
+        INDEX_QUERY("index query"),
+        MODEL_BUILD("model build");
+
+        private final String displayName;
+
+        Timer(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    public enum Counter {
+        MODEL_REQUEST("model requests"),
+        DUMB_MODEL_REQUEST("model requests served from the dumb mode snapshot"),
+        MODEL_BUILD("model builds (cache misses)"),
+        MODEL_PATCH("model builds patching changed files only"),
+        COMPLETION_ITEM("completion items added"),
+        COMPLETION_LIMIT_REACHED("completions stopped at limit");
+
+        private final String displayName;
+
+        Counter(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private final Map<Timer, LatencyHistogram> timers = new EnumMap<>(Timer.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    public LanguageMetrics() {
+        for (Timer timer : Timer.values()) {
+            timers.put(timer, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    @NotNull
+    public static LanguageMetrics getInstance() {
+        return ApplicationManager.getApplication().getService(LanguageMetrics.class);
+    }
+
+    /**
+     * Record the time elapsed since startNanos, a value previously taken from System.nanoTime().
+     */
+    public void record(@NotNull Timer timer, long startNanos) {
+        timers.get(timer).record(System.nanoTime() - startNanos);
+    }
+
+    public void increment(@NotNull Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    /**
+     * Number of samples recorded by the timer so far.
+     */
+    public long getCount(@NotNull Timer timer) {
+        return timers.get(timer).getCount();
+    }
+
+    public long getCount(@NotNull Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    @NotNull
+    public String snapshot() {
+        StringBuilder snapshot = new StringBuilder();
+        snapshot.append("Language metrics snapshot ").append(Instant.now()).append('\n');
+
+        for (Timer timer : Timer.values()) {
+            snapshot.append(timer.displayName).append(": ").append(timers.get(timer).format()).append('\n');
+        }
+        for (Counter counter : Counter.values()) {
+            snapshot.append(counter.displayName).append(": ").append(counters.get(counter).sum()).append('\n');
+        }
+
+        // requests answered in dumb mode never reach the cache
+        long requests = counters.get(Counter.MODEL_REQUEST).sum() - counters.get(Counter.DUMB_MODEL_REQUEST).sum();
+        long builds = counters.get(Counter.MODEL_BUILD).sum();
+        if (requests > 0) {
+            snapshot.append(String.format("model cache hit rate: %.1f%%%n", 100d * Math.max(0, requests - builds) / requests));
+        }
+
+        return snapshot.toString();
+    }
+}
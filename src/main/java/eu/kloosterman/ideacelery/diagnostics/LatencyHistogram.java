@@ -0,0 +1,66 @@
+package eu.kloosterman.ideacelery.diagnostics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets. Recording is a
+ * couple of atomic increments, cheap enough to leave on in production.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Upper bound in microseconds of the bucket holding the given percentile (0-100).
+     */
+    public long getPercentileMicros(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    @NotNull
+    public String format() {
+        long samples = count.sum();
+        double meanMillis = samples == 0 ? 0 : totalNanos.sum() / (double) samples / 1_000_000;
+        return String.format(
+            "count=%d mean=%.3fms p50<=%dus p90<=%dus p99<=%dus max=%.3fms",
+            samples, meanMillis, getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99), maxNanos.get() / 1_000_000d
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package eu.kloosterman.ideacelery.folding;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.folding.FoldingBuilderEx;
+import com.intellij.lang.folding.FoldingDescriptor;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds Language::get('item', 'category') calls to their english text. All calls of a file
+ * are collected first and their texts are looked up in one batch against the cached language
+ * model, so the language files are never parsed and no reference is resolved.
+ */
+public class LanguageFoldingBuilder extends FoldingBuilderEx implements DumbAware {
+
+    private static final String CALL_MARKER = "Language::get";
+    private static final int PLACEHOLDER_LENGTH = 60;
+
+    @NotNull
+    @Override
+    public FoldingDescriptor[] buildFoldRegions(@NotNull PsiElement root, @NotNull Document document, boolean quick) {
+        // the quick pass runs on the EDT when a file is opened, the model may not be built yet
+        if (quick || !StringUtil.contains(document.getCharsSequence(), CALL_MARKER)) {
+            return FoldingDescriptor.EMPTY_ARRAY;
+        }
+
+        Map<MethodReference, LanguageKey> calls = new LinkedHashMap<>();
+        for (MethodReference method : PsiTreeUtil.findChildrenOfType(root, MethodReference.class)) {
+            LanguageKey key = getKey(method);
+            if (key != null) {
+                calls.put(method, key);
+            }
+        }
+
+        if (calls.isEmpty()) {
+            return FoldingDescriptor.EMPTY_ARRAY;
+        }
+
+        LanguageModel model = LanguageModelService.getInstance(root.getProject()).getModel(root);
+        Map<LanguageKey, String> texts = model.getTexts(calls.values());
+
+        List<FoldingDescriptor> descriptors = new ArrayList<>();
+        for (Map.Entry<MethodReference, LanguageKey> call : calls.entrySet()) {
+            String text = texts.get(call.getValue());
+            if (text != null) {
+                String placeholder = "\"" + StringUtil.shortenTextWithEllipsis(text, PLACEHOLDER_LENGTH, 0) + "\"";
+                descriptors.add(new FoldingDescriptor(call.getKey().getNode(), call.getKey().getTextRange(), null, placeholder));
+            }
+        }
+
+        return descriptors.toArray(FoldingDescriptor.EMPTY_ARRAY);
+    }
+
+    @Nullable
+    @Override
+    public String getPlaceholderText(@NotNull ASTNode node) {
+        return null;
+    }
+
+    @Override
+    public boolean isCollapsedByDefault(@NotNull ASTNode node) {
+        return true;
+    }
+
+    /**
+     * Item key of a Language::get('item', 'category') call with two literal arguments.
+     */
+    @Nullable
+    private static LanguageKey getKey(@NotNull MethodReference method) {
+        if (!LanguagePatterns.isLanguageGet(method)) {
+            return null;
+        }
+
+        PsiElement[] parameters = method.getParameters();
+        if (parameters.length < 2 || !(parameters[0] instanceof StringLiteralExpression) || !(parameters[1] instanceof StringLiteralExpression)) {
+            return null;
+        }
+
+        return LanguageKey.item(((StringLiteralExpression) parameters[1]).getContents(), ((StringLiteralExpression) parameters[0]).getContents());
+    }
+}
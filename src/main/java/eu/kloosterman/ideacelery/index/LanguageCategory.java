@@ -0,0 +1,64 @@
+package eu.kloosterman.ideacelery.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Indexed view of one category of a language file: the offset of the category
+ * key, the offsets of all item keys declared inside it and the text of every
+ * item whose value is a constant string.
+ */
+public final class LanguageCategory {
+
+    private final int offset;
+    private final Map<String, Integer> items;
+    private final Map<String, String> texts;
+
+    public LanguageCategory(int offset, @NotNull Map<String, Integer> items, @NotNull Map<String, String> texts) {
+        this.offset = offset;
+        this.items = Collections.unmodifiableMap(items);
+        this.texts = Collections.unmodifiableMap(texts);
+    }
+
+    /**
+     * Offset of the category key string literal in the language file.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Item keys in declaration order, mapped to the offset of their string literal.
+     */
+    @NotNull
+    public Map<String, Integer> getItems() {
+        return items;
+    }
+
+    /**
+     * Item keys mapped to their text; items with a computed value are left out.
+     */
+    @NotNull
+    public Map<String, String> getTexts() {
+        return texts;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LanguageCategory)) {
+            return false;
+        }
+        LanguageCategory that = (LanguageCategory) o;
+        return offset == that.offset && items.equals(that.items) && texts.equals(that.texts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * offset + items.hashCode()) + texts.hashCode();
+    }
+}
@@ -0,0 +1,475 @@
+package eu.kloosterman.ideacelery.index;
+
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.lang.ParserDefinition;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.jetbrains.php.lang.PhpLanguage;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Extracts the categories and item keys of a language file straight from the PHP lexer
+ * token stream, without building PSI. Understands
+ * $lang = [ 'category' => [ 'item' => '...', ... ], ... ]; (or the array() syntax),
+ * $lang = array_merge($lang, [ ... ], require 'part.php');, $lang['category'] = [ ... ];
+ * and return [ ... ]; for files that are included, and records the offsets of the key
+ * literals, matching the PSI text offsets, together with the text of items whose value is
+ * a single constant string. Categories of later statements replace earlier ones, like
+ * array_merge() does, and a key repeated in one array literal replaces the earlier one. Includes with a constant path are collected separately, relative to
+ * the directory of the file; __DIR__ and dirname(__FILE__, levels) become parent paths.
+ */
+public final class LanguageFileParser {
+
+    private static final String LANG_VARIABLE = "$lang";
+    private static final String ARRAY_MERGE = "array_merge";
+    private static final String RETURN = "return";
+    private static final List<String> INCLUDES = List.of("require", "require_once", "include", "include_once");
+    private static final String CONCAT = ".";
+    private static final String DIRNAME = "dirname";
+    private static final String DIR = "__DIR__";
+    private static final String FILE = "__FILE__";
+
+    private final CharSequence text;
+    private final Lexer lexer;
+    private final TokenSet skippedTokens;
+    private final Map<String, LanguageCategory> categories = new HashMap<>();
+    private final List<LanguageInclude> includes = new ArrayList<>();
+
+    private LanguageFileParser(@Nullable Project project, @NotNull CharSequence text) {
+        ParserDefinition parserDefinition = LanguageParserDefinitions.INSTANCE.forLanguage(PhpLanguage.INSTANCE);
+        this.text = text;
+        this.lexer = parserDefinition.createLexer(project);
+        this.skippedTokens = TokenSet.orSet(
+            parserDefinition.getWhitespaceTokens(),
+            parserDefinition.getCommentTokens(),
+            TokenSet.create(TokenType.WHITE_SPACE)
+        );
+    }
+
+    /**
+     * Categories assigned to $lang or returned by the text, keyed by category name.
+     */
+    @NotNull
+    public static Map<String, LanguageCategory> parse(@Nullable Project project, @NotNull CharSequence text) {
+        LanguageFileParser parser = new LanguageFileParser(project, text);
+        parser.parseFile();
+        return parser.categories;
+    }
+
+    /**
+     * Includes with a constant path, in the order they appear in the text.
+     */
+    @NotNull
+    public static List<LanguageInclude> parseIncludes(@Nullable Project project, @NotNull CharSequence text) {
+        LanguageFileParser parser = new LanguageFileParser(project, text);
+        parser.parseFile();
+        return parser.includes;
+    }
+
+    private void parseFile() {
+        lexer.start(text);
+        skipIgnored();
+
+        while (lexer.getTokenType() != null) {
+            if (lexer.getTokenType() == PhpTokenTypes.VARIABLE && LANG_VARIABLE.contentEquals(tokenText())) {
+                advance();
+                if (lexer.getTokenType() == PhpTokenTypes.opASGN) {
+                    advance();
+                    parseValue();
+                } else if (lexer.getTokenType() == PhpTokenTypes.chLBRACKET) {
+                    parseCategoryAssignment();
+                }
+                continue;
+            }
+
+            if (isText(RETURN)) {
+                advance();
+                parseValue();
+                continue;
+            }
+
+            if (isInclude()) {
+                parseInclude();
+                continue;
+            }
+
+            advance();
+        }
+    }
+
+    /**
+     * Right hand side of $lang = or return: an array literal, array_merge() or an include.
+     */
+    private void parseValue() {
+        if (openArray()) {
+            categories.putAll(parseCategories());
+            return;
+        }
+
+        if (isInclude()) {
+            parseInclude();
+            return;
+        }
+
+        if (!isText(ARRAY_MERGE)) {
+            return;
+        }
+
+        advance();
+        if (lexer.getTokenType() != PhpTokenTypes.chLPAREN) {
+            return;
+        }
+
+        advance();
+        while (lexer.getTokenType() != null && lexer.getTokenType() != PhpTokenTypes.chRPAREN) {
+            int start = lexer.getTokenStart();
+            if (openArray()) {
+                categories.putAll(parseCategories());
+            } else if (isInclude()) {
+                parseInclude();
+            }
+
+            // $lang itself and any other argument
+            skipExpression();
+            skipComma();
+
+            if (lexer.getTokenStart() == start) {
+                // unbalanced call, leave it to the outer loop
+                return;
+            }
+        }
+        advance();
+    }
+
+    /**
+     * $lang['category'] = [ ... ];
+     */
+    private void parseCategoryAssignment() {
+        advance();
+        int offset = lexer.getTokenStart();
+        String category = readString();
+        if (category == null || lexer.getTokenType() != PhpTokenTypes.chRBRACKET) {
+            return;
+        }
+
+        advance();
+        if (lexer.getTokenType() != PhpTokenTypes.opASGN) {
+            return;
+        }
+
+        advance();
+        if (openArray()) {
+            Map<String, Integer> items = new LinkedHashMap<>();
+            Map<String, String> texts = new HashMap<>();
+            parseItems(items, texts);
+            categories.put(category, new LanguageCategory(offset, items, texts));
+        }
+    }
+
+    /**
+     * require 'part.php', include_once(__DIR__ . '/part.php') and the like; only constant paths are kept.
+     */
+    private void parseInclude() {
+        int offset = lexer.getTokenStart();
+        advance();
+
+        StringBuilder path = new StringBuilder();
+        boolean constant = true;
+        int depth = 0;
+        while (lexer.getTokenType() != null) {
+            IElementType tokenType = lexer.getTokenType();
+            if (tokenType == PhpTokenTypes.chLPAREN) {
+                depth++;
+            } else if (tokenType == PhpTokenTypes.chRPAREN) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (tokenType == PhpTokenTypes.opSEMICOLON || tokenType == PhpTokenTypes.opCOMMA
+                || tokenType == PhpTokenTypes.chRBRACKET || tokenType == PhpTokenTypes.chRBRACE) {
+                break;
+            } else if (isString(tokenType)) {
+                String value = readString();
+                if (value == null) {
+                    constant = false;
+                } else {
+                    path.append(value);
+                }
+                continue;
+            } else if (isText(DIRNAME) || isText(DIR) || isText(FILE)) {
+                int levels = readPathLevels();
+                if (levels < 1) {
+                    // the file itself or a path that is not constant
+                    constant = false;
+                } else {
+                    path.append(String.join("/", Collections.nCopies(levels - 1, "..")));
+                }
+                continue;
+            } else if (!CONCAT.contentEquals(tokenText())) {
+                constant = false;
+            }
+            advance();
+        }
+
+        String includePath = StringUtil.trimStart(path.toString(), "/");
+        if (constant && !includePath.isEmpty()) {
+            includes.add(new LanguageInclude(includePath, offset));
+        }
+    }
+
+    /**
+     * __FILE__, __DIR__ or dirname() of one of them, as the number of levels above the file:
+     * 0 for the file itself, 1 for its directory. Moves past it and returns -1 when it is not
+     * constant, like dirname($path).
+     */
+    private int readPathLevels() {
+        if (isText(FILE)) {
+            advance();
+            return 0;
+        }
+
+        if (isText(DIR)) {
+            advance();
+            return 1;
+        }
+
+        if (!isText(DIRNAME)) {
+            return -1;
+        }
+
+        advance();
+        if (lexer.getTokenType() != PhpTokenTypes.chLPAREN) {
+            return -1;
+        }
+
+        advance();
+        int levels = readPathLevels();
+        int count = 1;
+        if (levels >= 0 && lexer.getTokenType() == PhpTokenTypes.opCOMMA) {
+            advance();
+            count = lexer.getTokenType() != null ? StringUtil.parseInt(tokenText().toString(), 0) : 0;
+            advance();
+        }
+        boolean constant = levels >= 0 && count > 0 && lexer.getTokenType() == PhpTokenTypes.chRPAREN;
+
+        // any other argument, up to the closing parenthesis
+        while (lexer.getTokenType() != null && lexer.getTokenType() != PhpTokenTypes.chRPAREN) {
+            int start = lexer.getTokenStart();
+            skipExpression();
+            skipComma();
+            if (lexer.getTokenStart() == start) {
+                break;
+            }
+        }
+        if (lexer.getTokenType() == PhpTokenTypes.chRPAREN) {
+            advance();
+        }
+
+        return constant ? levels + count : -1;
+    }
+
+    @NotNull
+    private Map<String, LanguageCategory> parseCategories() {
+        Map<String, LanguageCategory> categories = new HashMap<>();
+
+        while (lexer.getTokenType() != null && !closeArray()) {
+            int offset = lexer.getTokenStart();
+            String category = readString();
+
+            if (category != null && lexer.getTokenType() == PhpTokenTypes.opHASH_ARRAY) {
+                advance();
+                Map<String, Integer> items = new LinkedHashMap<>();
+                Map<String, String> texts = new HashMap<>();
+                if (openArray()) {
+                    parseItems(items, texts);
+                } else {
+                    skipExpression();
+                }
+                // a repeated key replaces the earlier one, as in PHP
+                categories.put(category, new LanguageCategory(offset, items, texts));
+            } else {
+                skipExpression();
+            }
+
+            skipComma();
+        }
+
+        return categories;
+    }
+
+    private void parseItems(@NotNull Map<String, Integer> items, @NotNull Map<String, String> texts) {
+        while (lexer.getTokenType() != null && !closeArray()) {
+            int offset = lexer.getTokenStart();
+            String item = readString();
+
+            if (item != null && lexer.getTokenType() == PhpTokenTypes.opHASH_ARRAY) {
+                advance();
+                // a repeated key replaces the earlier one, as in PHP
+                items.put(item, offset);
+                texts.remove(item);
+                String text = readString();
+                // 'a' . 'b' and the like are not constant texts
+                if (text != null && isValueEnd()) {
+                    texts.put(item, text);
+                }
+            }
+
+            skipExpression();
+            skipComma();
+        }
+    }
+
+    /**
+     * Reads a constant string literal and moves past it; returns null for anything else.
+     */
+    @Nullable
+    private String readString() {
+        IElementType tokenType = lexer.getTokenType();
+
+        if (tokenType == PhpTokenTypes.STRING_LITERAL_SINGLE_QUOTE || tokenType == PhpTokenTypes.STRING_LITERAL) {
+            String value = unquote(tokenText());
+            advance();
+            return value;
+        }
+
+        if (tokenType == PhpTokenTypes.chLDOUBLE_QUOTE) {
+            StringBuilder value = new StringBuilder();
+            lexer.advance();
+            while (lexer.getTokenType() == PhpTokenTypes.STRING_LITERAL) {
+                value.append(tokenText());
+                lexer.advance();
+            }
+
+            if (lexer.getTokenType() != PhpTokenTypes.chRDOUBLE_QUOTE) {
+                // interpolated string, not a constant key
+                return null;
+            }
+
+            advance();
+            return value.toString();
+        }
+
+        return null;
+    }
+
+    /**
+     * Skips tokens up to the next comma or closing bracket on the current nesting level.
+     */
+    private void skipExpression() {
+        int depth = 0;
+
+        while (lexer.getTokenType() != null) {
+            IElementType tokenType = lexer.getTokenType();
+            if (tokenType == PhpTokenTypes.chLBRACKET || tokenType == PhpTokenTypes.chLPAREN || tokenType == PhpTokenTypes.chLBRACE) {
+                depth++;
+            } else if (tokenType == PhpTokenTypes.chRBRACKET || tokenType == PhpTokenTypes.chRPAREN || tokenType == PhpTokenTypes.chRBRACE) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (depth == 0 && (tokenType == PhpTokenTypes.opCOMMA || tokenType == PhpTokenTypes.opSEMICOLON)) {
+                break;
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Moves past "[" or "array(" and reports whether an array literal was opened.
+     */
+    private boolean openArray() {
+        if (lexer.getTokenType() == PhpTokenTypes.chLBRACKET) {
+            advance();
+            return true;
+        }
+
+        if (lexer.getTokenType() == PhpTokenTypes.kwARRAY) {
+            advance();
+            if (lexer.getTokenType() == PhpTokenTypes.chLPAREN) {
+                advance();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves past the closing "]" or ")" of an array literal, if that is the current token.
+     */
+    private boolean closeArray() {
+        IElementType tokenType = lexer.getTokenType();
+        if (tokenType == PhpTokenTypes.chRBRACKET || tokenType == PhpTokenTypes.chRPAREN) {
+            advance();
+            return true;
+        }
+
+        // a stray semicolon or brace means the array was never closed
+        return tokenType == PhpTokenTypes.opSEMICOLON || tokenType == PhpTokenTypes.chRBRACE;
+    }
+
+    private boolean isValueEnd() {
+        IElementType tokenType = lexer.getTokenType();
+        return tokenType == null || tokenType == PhpTokenTypes.opCOMMA || tokenType == PhpTokenTypes.chRBRACKET || tokenType == PhpTokenTypes.chRPAREN;
+    }
+
+    private boolean isInclude() {
+        for (String include : INCLUDES) {
+            if (isText(include)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keyword or identifier with the given text; string contents never match.
+     */
+    private boolean isText(@NotNull String value) {
+        IElementType tokenType = lexer.getTokenType();
+        return tokenType != null && !isString(tokenType) && StringUtil.equalsIgnoreCase(tokenText(), value);
+    }
+
+    private static boolean isString(@NotNull IElementType tokenType) {
+        return tokenType == PhpTokenTypes.STRING_LITERAL_SINGLE_QUOTE || tokenType == PhpTokenTypes.STRING_LITERAL || tokenType == PhpTokenTypes.chLDOUBLE_QUOTE;
+    }
+
+    private void skipComma() {
+        if (lexer.getTokenType() == PhpTokenTypes.opCOMMA) {
+            advance();
+        }
+    }
+
+    private void advance() {
+        lexer.advance();
+        skipIgnored();
+    }
+
+    private void skipIgnored() {
+        while (lexer.getTokenType() != null && skippedTokens.contains(lexer.getTokenType())) {
+            lexer.advance();
+        }
+    }
+
+    @NotNull
+    private CharSequence tokenText() {
+        return text.subSequence(lexer.getTokenStart(), lexer.getTokenEnd());
+    }
+
+    @NotNull
+    private static String unquote(@NotNull CharSequence value) {
+        int length = value.length();
+        if (length >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"') && value.charAt(length - 1) == value.charAt(0)) {
+            return value.subSequence(1, length - 1).toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package eu.kloosterman.ideacelery.index;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * A require or include of another language file with a constant path, relative to the
+ * directory of the including file, and the offset of the include in that file.
+ */
+public final class LanguageInclude {
+
+    private final String path;
+    private final int offset;
+
+    public LanguageInclude(@NotNull String path, int offset) {
+        this.path = path;
+        this.offset = offset;
+    }
+
+    @NotNull
+    public String getPath() {
+        return path;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LanguageInclude)) {
+            return false;
+        }
+        LanguageInclude that = (LanguageInclude) o;
+        return offset == that.offset && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, offset);
+    }
+}
@@ -0,0 +1,109 @@
+package eu.kloosterman.ideacelery.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import com.jetbrains.php.lang.PhpFileType;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the require and include statements of language files, so the merged tables can
+ * follow split language files without parsing them again. The value per file is the list
+ * of includes with a constant path, read by {@link LanguageFileParser}.
+ */
+public class LanguageIncludeIndex extends SingleEntryFileBasedIndexExtension<List<LanguageInclude>> {
+
+    public static final ID<Integer, List<LanguageInclude>> NAME = ID.create("eu.kloosterman.ideacelery.LanguageIncludeIndex");
+
+    @NotNull
+    @Override
+    public ID<Integer, List<LanguageInclude>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public SingleEntryIndexer<List<LanguageInclude>> getIndexer() {
+        return new SingleEntryIndexer<>(false) {
+            @Override
+            protected List<LanguageInclude> computeValue(@NotNull FileContent inputData) {
+                CharSequence text = inputData.getContentAsText();
+                // cheap text check first, most language files include nothing
+                if (!StringUtil.contains(text, "require") && !StringUtil.contains(text, "include")) {
+                    return Collections.emptyList();
+                }
+
+                return LanguageFileParser.parseIncludes(inputData.getProject(), text);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<LanguageInclude>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<LanguageInclude> value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.size());
+                for (LanguageInclude include : value) {
+                    IOUtil.writeUTF(out, include.getPath());
+                    DataInputOutputUtil.writeINT(out, include.getOffset());
+                }
+            }
+
+            @Override
+            public List<LanguageInclude> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<LanguageInclude> includes = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    String path = IOUtil.readUTF(in);
+                    includes.add(new LanguageInclude(path, DataInputOutputUtil.readINT(in)));
+                }
+                return includes;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                return LanguageKeyIndex.isLanguagePartFile(file);
+            }
+        };
+    }
+
+    /**
+     * Indexed includes of a single language file, in the order they appear.
+     */
+    @NotNull
+    public static List<LanguageInclude> getIncludes(@NotNull Project project, @NotNull VirtualFile file) {
+        long start = System.nanoTime();
+        try {
+            Map<Integer, List<LanguageInclude>> data = FileBasedIndex.getInstance().getFileData(NAME, file, project);
+            return data.isEmpty() ? Collections.emptyList() : data.values().iterator().next();
+        } finally {
+            LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package eu.kloosterman.ideacelery.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.PathUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Indexes the categories of all locale files (english-utf-8.php, dutch-utf-8.php, ...)
+ * inside a "languages" directory, and of the PHP files below it that locale files include.
+ * Key is the category name, value holds the item keys of that category together
+ * with the offsets needed for navigation and their english text. The data is read from the lexer token stream
+ * by {@link LanguageFileParser}, so neither indexing nor lookups build the AST.
+ */
+public class LanguageKeyIndex extends FileBasedIndexExtension<String, LanguageCategory> {
+
+    public static final ID<String, LanguageCategory> NAME = ID.create("eu.kloosterman.ideacelery.LanguageKeyIndex");
+
+    public static final String LANGUAGES_DIRECTORY = "languages";
+    public static final String LOCALE_FILE_SUFFIX = "-utf-8.php";
+    public static final String ENGLISH_LOCALE = "english";
+    public static final String ENGLISH_FILE_NAME = ENGLISH_LOCALE + LOCALE_FILE_SUFFIX;
+
+    @NotNull
+    @Override
+    public ID<String, LanguageCategory> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, LanguageCategory, FileContent> getIndexer() {
+        return inputData -> LanguageFileParser.parse(inputData.getProject(), inputData.getContentAsText());
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<LanguageCategory> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, LanguageCategory value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.getOffset());
+                DataInputOutputUtil.writeINT(out, value.getItems().size());
+                for (Map.Entry<String, Integer> item : value.getItems().entrySet()) {
+                    IOUtil.writeUTF(out, item.getKey());
+                    DataInputOutputUtil.writeINT(out, item.getValue());
+                }
+                DataInputOutputUtil.writeINT(out, value.getTexts().size());
+                for (Map.Entry<String, String> text : value.getTexts().entrySet()) {
+                    IOUtil.writeUTF(out, text.getKey());
+                    IOUtil.writeUTF(out, text.getValue());
+                }
+            }
+
+            @Override
+            public LanguageCategory read(@NotNull DataInput in) throws IOException {
+                int offset = DataInputOutputUtil.readINT(in);
+                int size = DataInputOutputUtil.readINT(in);
+                Map<String, Integer> items = new LinkedHashMap<>(size);
+                for (int i = 0; i < size; i++) {
+                    String item = IOUtil.readUTF(in);
+                    items.put(item, DataInputOutputUtil.readINT(in));
+                }
+                int textCount = DataInputOutputUtil.readINT(in);
+                Map<String, String> texts = new HashMap<>(textCount);
+                for (int i = 0; i < textCount; i++) {
+                    String item = IOUtil.readUTF(in);
+                    texts.put(item, IOUtil.readUTF(in));
+                }
+                return new LanguageCategory(offset, items, texts);
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 6;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                return isLanguagePartFile(file);
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * English language file, the reference locale for completion and navigation.
+     */
+    public static boolean isLanguageFile(@NotNull VirtualFile file) {
+        return ENGLISH_FILE_NAME.equals(file.getName()) && isLocaleFile(file);
+    }
+
+    /**
+     * Any *-utf-8.php locale file inside a "languages" directory.
+     */
+    public static boolean isLocaleFile(@NotNull VirtualFile file) {
+        VirtualFile parent = file.getParent();
+        return file.getName().endsWith(LOCALE_FILE_SUFFIX) && parent != null && LANGUAGES_DIRECTORY.equals(parent.getName());
+    }
+
+    /**
+     * A locale file or another PHP file that a locale file may include: inside a "languages"
+     * directory or one of its subdirectories.
+     */
+    public static boolean isLanguagePartFile(@NotNull VirtualFile file) {
+        VirtualFile parent = file.getParent();
+        return parent != null && (LANGUAGES_DIRECTORY.equals(parent.getName()) || parent.getParent() != null && LANGUAGES_DIRECTORY.equals(parent.getParent().getName()));
+    }
+
+    /**
+     * Path based variant of {@link #isLanguagePartFile(VirtualFile)}, used for VFS events of files that may no longer exist.
+     */
+    public static boolean isLanguagePartFilePath(@NotNull String path) {
+        if (!path.endsWith(".php")) {
+            return false;
+        }
+
+        String parent = PathUtil.getParentPath(path);
+        return LANGUAGES_DIRECTORY.equals(PathUtil.getFileName(parent)) || LANGUAGES_DIRECTORY.equals(PathUtil.getFileName(PathUtil.getParentPath(parent)));
+    }
+
+    /**
+     * Path based variant of {@link #isLocaleFile(VirtualFile)}, used for VFS events of files that may no longer exist.
+     */
+    public static boolean isLocaleFilePath(@NotNull String path) {
+        return path.endsWith(LOCALE_FILE_SUFFIX) && LANGUAGES_DIRECTORY.equals(PathUtil.getFileName(PathUtil.getParentPath(path)));
+    }
+
+    /**
+     * Locale name of a locale file, e.g. "dutch" for dutch-utf-8.php.
+     */
+    @NotNull
+    public static String getLocale(@NotNull VirtualFile file) {
+        String name = file.getName();
+        return name.endsWith(LOCALE_FILE_SUFFIX) ? name.substring(0, name.length() - LOCALE_FILE_SUFFIX.length()) : name;
+    }
+
+    /**
+     * The other locale files next to an english language file.
+     */
+    @NotNull
+    public static List<VirtualFile> getLocaleFiles(@NotNull VirtualFile languageFile) {
+        VirtualFile directory = languageFile.getParent();
+        if (directory == null) {
+            return Collections.emptyList();
+        }
+
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile child : directory.getChildren()) {
+            if (!child.isDirectory() && !child.equals(languageFile) && child.getName().endsWith(LOCALE_FILE_SUFFIX)) {
+                files.add(child);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * All english language files in the project content, found through the filename index.
+     * Libraries are left out, they hold no language files of the application.
+     */
+    @NotNull
+    public static List<VirtualFile> getLanguageFiles(@NotNull Project project) {
+        long start = System.nanoTime();
+
+        List<VirtualFile> files = new ArrayList<>();
+        for (VirtualFile file : FilenameIndex.getVirtualFilesByName(ENGLISH_FILE_NAME, GlobalSearchScope.projectScope(project))) {
+            if (isLanguageFile(file)) {
+                files.add(file);
+            }
+        }
+
+        LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        return files;
+    }
+
+    /**
+     * Indexed categories of a single language file, keyed by category name.
+     */
+    @NotNull
+    public static Map<String, LanguageCategory> getCategories(@NotNull Project project, @NotNull VirtualFile file) {
+        long start = System.nanoTime();
+        try {
+            return FileBasedIndex.getInstance().getFileData(NAME, file, project);
+        } finally {
+            LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        }
+    }
+}
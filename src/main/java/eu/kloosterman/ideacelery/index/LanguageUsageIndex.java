@@ -0,0 +1,169 @@
+package eu.kloosterman.ideacelery.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Indexes the literal (category, item) pairs passed to Language::get() in PHP files.
+ * Every call contributes a category key for its category argument and an item key for
+ * its item argument; the value holds the offsets of those string literals in the file.
+ */
+public class LanguageUsageIndex extends FileBasedIndexExtension<LanguageKey, List<Integer>> {
+
+    public static final ID<LanguageKey, List<Integer>> NAME = ID.create("eu.kloosterman.ideacelery.LanguageUsageIndex");
+
+    private static final String CALL_MARKER = "Language::get";
+
+    @NotNull
+    @Override
+    public ID<LanguageKey, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<LanguageKey, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            // cheap text check first, most PHP files never call Language::get()
+            if (!StringUtil.contains(inputData.getContentAsText(), CALL_MARKER)) {
+                return Collections.emptyMap();
+            }
+
+            Map<LanguageKey, List<Integer>> map = new HashMap<>();
+            for (MethodReference method : PsiTreeUtil.findChildrenOfType(inputData.getPsiFile(), MethodReference.class)) {
+                if (!LanguagePatterns.isLanguageGet(method)) {
+                    continue;
+                }
+
+                PsiElement[] parameters = method.getParameters();
+                if (parameters.length < 2 || !(parameters[1] instanceof StringLiteralExpression)) {
+                    continue;
+                }
+
+                String category = ((StringLiteralExpression) parameters[1]).getContents();
+                map.computeIfAbsent(LanguageKey.category(category), k -> new ArrayList<>()).add(parameters[1].getTextOffset());
+
+                if (parameters[0] instanceof StringLiteralExpression) {
+                    String item = ((StringLiteralExpression) parameters[0]).getContents();
+                    map.computeIfAbsent(LanguageKey.item(category, item), k -> new ArrayList<>()).add(parameters[0].getTextOffset());
+                }
+            }
+
+            return map;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<LanguageKey> getKeyDescriptor() {
+        return new KeyDescriptor<>() {
+            @Override
+            public int getHashCode(LanguageKey value) {
+                return value.hashCode();
+            }
+
+            @Override
+            public boolean isEqual(LanguageKey val1, LanguageKey val2) {
+                return val1.equals(val2);
+            }
+
+            @Override
+            public void save(@NotNull DataOutput out, LanguageKey value) throws IOException {
+                IOUtil.writeUTF(out, value.getCategory());
+                out.writeBoolean(value.isCategory());
+                if (!value.isCategory()) {
+                    IOUtil.writeUTF(out, value.getItem());
+                }
+            }
+
+            @Override
+            public LanguageKey read(@NotNull DataInput in) throws IOException {
+                String category = IOUtil.readUTF(in);
+                return in.readBoolean() ? LanguageKey.category(category) : LanguageKey.item(category, IOUtil.readUTF(in));
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.size());
+                for (Integer offset : value) {
+                    DataInputOutputUtil.writeINT(out, offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<Integer> offsets = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    offsets.add(DataInputOutputUtil.readINT(in));
+                }
+                return offsets;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                return !LanguageKeyIndex.isLanguagePartFile(file);
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Files calling Language::get() with the given key, mapped to the offsets of the matching literals.
+     */
+    @NotNull
+    public static Map<VirtualFile, List<Integer>> getUsages(@NotNull Project project, @NotNull LanguageKey key, @NotNull GlobalSearchScope scope) {
+        long start = System.nanoTime();
+
+        Map<VirtualFile, List<Integer>> usages = new LinkedHashMap<>();
+        FileBasedIndex.getInstance().processValues(NAME, key, null, (file, offsets) -> {
+            usages.computeIfAbsent(file, f -> new ArrayList<>()).addAll(offsets);
+            return true;
+        }, scope);
+
+        LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        return usages;
+    }
+}
@@ -0,0 +1,59 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Reports english categories and items that are missing in one of the other locale files,
+ * both on Language::get() arguments and on the keys of english-utf-8.php itself.
+ */
+public class MissingTranslationInspection extends LocalInspectionTool {
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        LanguageModel model = LanguageModelService.getInstance(holder.getProject()).getModel(holder.getFile());
+        if (model.getLocaleTables().isEmpty()) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        // inside the english files themselves keys are looked up by their indexed offset
+        VirtualFile file = holder.getFile().getVirtualFile();
+        LanguageTable table = file != null && LanguageKeyIndex.isLanguagePartFile(file) ? model.findLanguageTable(file) : null;
+
+        return new PsiElementVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (!(element instanceof StringLiteralExpression)) {
+                    return;
+                }
+
+                LanguageKey key = table != null
+                    ? table.getKeyAt(file, element.getTextOffset())
+                    : LanguagePatterns.getArgumentKey((StringLiteralExpression) element);
+                if (key == null) {
+                    return;
+                }
+
+                List<String> locales = model.getMissingLocales(key);
+                if (!locales.isEmpty()) {
+                    holder.registerProblem(element, MyBundle.message("inspection.missing.translation.problem", key.toString(), String.join(", ", locales)));
+                }
+            }
+        };
+    }
+}
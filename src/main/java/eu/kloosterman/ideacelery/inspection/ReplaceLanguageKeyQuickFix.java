@@ -0,0 +1,42 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.ElementManipulators;
+import com.intellij.psi.PsiElement;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces the contents of a Language::get() string argument with an existing key.
+ */
+public class ReplaceLanguageKeyQuickFix implements LocalQuickFix {
+
+    private final String replacement;
+
+    public ReplaceLanguageKeyQuickFix(@NotNull String replacement) {
+        this.replacement = replacement;
+    }
+
+    @NotNull
+    @Override
+    public String getName() {
+        return MyBundle.message("inspection.unknown.key.fix.name", replacement);
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return MyBundle.message("inspection.unknown.key.fix.family");
+    }
+
+    @Override
+    public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+        PsiElement element = descriptor.getPsiElement();
+        if (element instanceof StringLiteralExpression) {
+            ElementManipulators.handleContentChange(element, replacement);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Reports Language::get() arguments whose category or item does not exist in the
+ * english language files. Existence checks are binary searches in the sorted key
+ * stores of the cached model; similar keys are only searched for once a problem was found.
+ */
+public class UnknownLanguageKeyInspection extends LocalInspectionTool {
+
+    private static final int MAX_SUGGESTIONS = 3;
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        LanguageModel model = LanguageModelService.getInstance(holder.getProject()).getModel(holder.getFile());
+        if (model.getTables().isEmpty()) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        return new PsiElementVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (!(element instanceof StringLiteralExpression)) {
+                    return;
+                }
+
+                LanguageKey key = LanguagePatterns.getArgumentKey((StringLiteralExpression) element);
+                if (key == null || key.getCategory().isEmpty()) {
+                    return;
+                }
+
+                String item = key.getItem();
+                if (item == null) {
+                    if (!model.hasCategory(key.getCategory())) {
+                        List<String> similar = model.getSimilarCategories(key.getCategory(), MAX_SUGGESTIONS);
+                        holder.registerProblem(element, MyBundle.message("inspection.unknown.key.category.problem", key.getCategory()), ProblemHighlightType.GENERIC_ERROR_OR_WARNING, createFixes(similar));
+                    }
+                    return;
+                }
+
+                // an unknown category is already reported on the category argument
+                if (item.isEmpty() || !model.hasCategory(key.getCategory()) || model.hasItem(key.getCategory(), item)) {
+                    return;
+                }
+
+                List<String> similar = model.getSimilarItems(key.getCategory(), item, MAX_SUGGESTIONS);
+                holder.registerProblem(element, MyBundle.message("inspection.unknown.key.item.problem", item, key.getCategory()), ProblemHighlightType.GENERIC_ERROR_OR_WARNING, createFixes(similar));
+            }
+        };
+    }
+
+    @NotNull
+    private static LocalQuickFix[] createFixes(@NotNull List<String> similar) {
+        LocalQuickFix[] fixes = new LocalQuickFix[similar.size()];
+        for (int i = 0; i < similar.size(); i++) {
+            fixes[i] = new ReplaceLanguageKeyQuickFix(similar.get(i));
+        }
+        return fixes;
+    }
+}
@@ -0,0 +1,65 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.language.LanguageUsages;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+
+/**
+ * Marks categories and items of english-utf-8.php, and of the files it includes, that no Language::get() call references.
+ */
+public class UnusedLanguageKeyInspection extends LocalInspectionTool {
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        VirtualFile file = holder.getFile().getVirtualFile();
+        if (file == null || !LanguageKeyIndex.isLanguagePartFile(file)) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        Project project = holder.getProject();
+        LanguageModel model = LanguageModelService.getInstance(project).getModel(file);
+        LanguageTable table = model.findLanguageTable(file);
+        if (table == null) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        Set<LanguageKey> usedKeys = LanguageUsages.getUsedKeys(project);
+
+        return new PsiElementVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (!(element instanceof StringLiteralExpression)) {
+                    return;
+                }
+
+                LanguageKey key = table.getKeyAt(file, element.getTextOffset());
+                if (key == null || LanguageUsages.isUsed(project, model, usedKeys, key)) {
+                    return;
+                }
+
+                // items of an unused category are covered by the category problem
+                if (!key.isCategory() && !LanguageUsages.isUsed(project, model, usedKeys, LanguageKey.category(key.getCategory()))) {
+                    return;
+                }
+
+                holder.registerProblem(element, MyBundle.message("inspection.unused.key.problem", key.toString()), ProblemHighlightType.LIKE_UNUSED_SYMBOL);
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package eu.kloosterman.ideacelery.language;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * A category key, or an item key within a category, of the language tables.
+ */
+public final class LanguageKey {
+
+    private final String category;
+    private final String item;
+
+    private LanguageKey(@NotNull String category, @Nullable String item) {
+        this.category = category;
+        this.item = item;
+    }
+
+    @NotNull
+    public static LanguageKey category(@NotNull String category) {
+        return new LanguageKey(category, null);
+    }
+
+    @NotNull
+    public static LanguageKey item(@NotNull String category, @NotNull String item) {
+        return new LanguageKey(category, item);
+    }
+
+    @NotNull
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Item name, or null when this key denotes the category itself.
+     */
+    @Nullable
+    public String getItem() {
+        return item;
+    }
+
+    public boolean isCategory() {
+        return item == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LanguageKey)) {
+            return false;
+        }
+        LanguageKey that = (LanguageKey) o;
+        return category.equals(that.category) && Objects.equals(item, that.item);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * category.hashCode() + Objects.hashCode(item);
+    }
+
+    @Override
+    public String toString() {
+        return item == null ? category : category + "." + item;
+    }
+}
@@ -0,0 +1,39 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A language key together with the file and offset of its key literal.
+ */
+public final class LanguageKeyLocation {
+
+    private final LanguageKey key;
+    private final VirtualFile file;
+    private final int offset;
+
+    public LanguageKeyLocation(@NotNull LanguageKey key, @NotNull VirtualFile file, int offset) {
+        this.key = key;
+        this.file = file;
+        this.offset = offset;
+    }
+
+    @NotNull
+    public LanguageKey getKey() {
+        return key;
+    }
+
+    @NotNull
+    public VirtualFile getFile() {
+        return file;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return key.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.Interner;
+import com.intellij.util.text.EditDistance;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Immutable, sorted set of category or item keys. Keys are kept in a single array in
+ * case-insensitive order, so a typed prefix maps to one contiguous range found by binary
+ * search, and membership checks need no hash table per category.
+ */
+public final class LanguageKeyStore {
+
+    public static final LanguageKeyStore EMPTY = new LanguageKeyStore(new String[0]);
+
+    private static final Comparator<String> KEY_ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final String[] keys;
+
+    private LanguageKeyStore(@NotNull String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Store of the given keys, without duplicates; every key is passed through the interner
+     * so keys shared by several categories or tables are only held once.
+     */
+    @NotNull
+    public static LanguageKeyStore create(@NotNull Collection<String> keys, @NotNull Interner<String> interner) {
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] sorted = new String[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            sorted[i++] = interner.intern(key);
+        }
+        Arrays.sort(sorted, KEY_ORDER);
+
+        // drop duplicates, they are adjacent after sorting
+        int size = 1;
+        for (int j = 1; j < sorted.length; j++) {
+            if (!sorted[j].equals(sorted[size - 1])) {
+                sorted[size++] = sorted[j];
+            }
+        }
+
+        return new LanguageKeyStore(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean contains(@NotNull String key) {
+        return Arrays.binarySearch(keys, key, KEY_ORDER) >= 0;
+    }
+
+    /**
+     * All keys in case-insensitive order.
+     */
+    @NotNull
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Keys starting with the given prefix, ignoring case; a view on the store, nothing is copied.
+     */
+    @NotNull
+    public List<String> getKeysWithPrefix(@NotNull String prefix) {
+        if (prefix.isEmpty()) {
+            return getKeys();
+        }
+
+        int from = lowerBound(prefix);
+        return getKeys().subList(from, upperBound(prefix, from));
+    }
+
+    /**
+     * All keys, with the ones starting with the prefix first. Completion matchers also accept
+     * camel hump and middle matches, so the other keys cannot be left out, but a result limit
+     * is usually reached before they are visited.
+     */
+    @NotNull
+    public List<String> getKeysPrefixFirst(@NotNull String prefix) {
+        if (prefix.isEmpty()) {
+            return getKeys();
+        }
+
+        List<String> all = getKeys();
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        return ContainerUtil.concat(all.subList(from, to), all.subList(0, from), all.subList(to, all.size()));
+    }
+
+    /**
+     * Keys within a small edit distance of the given value, nearest first. Swapped neighbour
+     * characters count as a single edit, as they are the most common typo.
+     */
+    @NotNull
+    public List<String> getSimilarKeys(@NotNull String value, int limit) {
+        int maxDistance = Math.max(2, value.length() / 3);
+
+        List<String> similar = new ArrayList<>();
+        Map<String, Integer> distances = new HashMap<>();
+        for (String key : keys) {
+            if (Math.abs(key.length() - value.length()) > maxDistance) {
+                continue;
+            }
+
+            int distance = EditDistance.optimalAlignment(value, key, false);
+            if (distance <= maxDistance) {
+                similar.add(key);
+                distances.put(key, distance);
+            }
+        }
+
+        similar.sort(Comparator.comparingInt(distances::get));
+        return similar.size() > limit ? similar.subList(0, limit) : similar;
+    }
+
+    private int lowerBound(@NotNull String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(keys[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * End of the range starting at from whose keys share the prefix.
+     */
+    private int upperBound(@NotNull String prefix, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startsWithIgnoreCase(keys[middle], prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean startsWithIgnoreCase(@NotNull String key, @NotNull String prefix) {
+        return key.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+}
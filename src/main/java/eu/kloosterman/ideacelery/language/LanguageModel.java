@@ -0,0 +1,397 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.util.NotNullLazyValue;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.Interner;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of all language tables of a project. Categories and items of
+ * every english language file are merged into sorted {@link LanguageKeyStore}s when the
+ * snapshot is built; the other locales are only compared against them on demand.
+ * <p>
+ * A project can hold several applications, each with its own "languages" directory.
+ * {@link #getScopedModel} narrows the model to the language root of a calling file;
+ * these scoped models are cached per root for the lifetime of the snapshot.
+ */
+public final class LanguageModel {
+
+    public static final LanguageModel EMPTY = new LanguageModel(Collections.emptyList(), Collections.emptyList());
+
+    private final List<LanguageTable> tables;
+    private final List<LanguageTable> localeTables;
+    private final LanguageKeyStore categories;
+    private final Map<String, LanguageKeyStore> items = new HashMap<>();
+    private final NotNullLazyValue<Map<LanguageKey, List<String>>> missingTranslations =
+        NotNullLazyValue.atomicLazy(this::computeMissingTranslations);
+    private final NotNullLazyValue<List<String>> keyNames = NotNullLazyValue.atomicLazy(this::computeKeyNames);
+    private final Set<VirtualFile> languageRoots = new HashSet<>();
+    private final Map<VirtualFile, LanguageModel> scopedModels = new ConcurrentHashMap<>();
+    // scoped models of the previous snapshot, each patched at most once into one of this snapshot
+    private final Map<VirtualFile, LanguageModel> previousScopedModels;
+    private final VirtualFile root;
+
+    public LanguageModel(@NotNull List<LanguageTable> tables, @NotNull List<LanguageTable> localeTables) {
+        this(tables, localeTables, null);
+    }
+
+    /**
+     * Model of updated tables. Tables are compared by identity with those of the previous model,
+     * and the key stores of categories whose items did not change in any replaced table are
+     * taken over, so an edit only sorts the categories it touched. The scoped models of the
+     * previous model are patched the same way when a root is first scoped again.
+     */
+    public LanguageModel(@NotNull List<LanguageTable> tables, @NotNull List<LanguageTable> localeTables, @Nullable LanguageModel previous) {
+        this(tables, localeTables, previous, null);
+    }
+
+    private LanguageModel(@NotNull List<LanguageTable> tables, @NotNull List<LanguageTable> localeTables, @Nullable LanguageModel previous, @Nullable VirtualFile root) {
+        this.root = root;
+        this.tables = Collections.unmodifiableList(tables);
+        this.localeTables = Collections.unmodifiableList(localeTables);
+        this.previousScopedModels = previous != null ? new ConcurrentHashMap<>(previous.scopedModels) : new ConcurrentHashMap<>();
+
+        Set<String> changedCategories = previous != null ? getChangedCategories(previous.tables, tables) : null;
+        Map<String, Set<String>> mergedItems = new HashMap<>();
+
+        for (LanguageTable table : tables) {
+            VirtualFile languagesDirectory = table.getFile().getParent();
+            if (languagesDirectory != null && languagesDirectory.getParent() != null) {
+                languageRoots.add(languagesDirectory.getParent());
+            }
+
+            for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+                Set<String> categoryItems = mergedItems.computeIfAbsent(category.getKey(), k -> new HashSet<>());
+                if (changedCategories == null || changedCategories.contains(category.getKey()) || !previous.items.containsKey(category.getKey())) {
+                    categoryItems.addAll(category.getValue().getItems().keySet());
+                }
+            }
+        }
+
+        Interner<String> interner = Interner.createStringInterner();
+        if (previous != null && previous.items.keySet().equals(mergedItems.keySet())) {
+            this.categories = previous.categories;
+        } else {
+            this.categories = LanguageKeyStore.create(mergedItems.keySet(), interner);
+        }
+
+        for (Map.Entry<String, Set<String>> category : mergedItems.entrySet()) {
+            LanguageKeyStore previousItems = previous != null ? previous.items.get(category.getKey()) : null;
+            if (previousItems != null && !changedCategories.contains(category.getKey())) {
+                items.put(category.getKey(), previousItems);
+            } else {
+                items.put(interner.intern(category.getKey()), LanguageKeyStore.create(category.getValue(), interner));
+            }
+        }
+    }
+
+    /**
+     * Tables of the english language files.
+     */
+    @NotNull
+    public List<LanguageTable> getTables() {
+        return tables;
+    }
+
+    /**
+     * Tables of all non-english locale files next to the english ones.
+     */
+    @NotNull
+    public List<LanguageTable> getLocaleTables() {
+        return localeTables;
+    }
+
+    /**
+     * English table declared in the given english file or in a file it includes.
+     */
+    @Nullable
+    public LanguageTable findLanguageTable(@NotNull VirtualFile file) {
+        for (LanguageTable table : tables) {
+            if (table.getFiles().contains(file)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Table of the given english or locale file, or of a file included by one, if it is part of this snapshot.
+     */
+    @Nullable
+    public LanguageTable findTable(@NotNull VirtualFile file) {
+        for (LanguageTable table : tables) {
+            if (table.getFiles().contains(file)) {
+                return table;
+            }
+        }
+        for (LanguageTable table : localeTables) {
+            if (table.getFiles().contains(file)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Model of the language root that owns the given file: the closest directory above it that
+     * holds a languages/english-utf-8.php, otherwise the language files inside its content root.
+     * Falls back to this model when neither exists.
+     */
+    @NotNull
+    public LanguageModel getScopedModel(@NotNull VirtualFile file, @Nullable VirtualFile contentRoot) {
+        if (tables.size() <= 1) {
+            return this;
+        }
+
+        for (VirtualFile directory = file.getParent(); directory != null; directory = directory.getParent()) {
+            if (languageRoots.contains(directory)) {
+                return scopedModels.computeIfAbsent(directory, this::createScopedModel);
+            }
+            if (directory.equals(contentRoot)) {
+                break;
+            }
+        }
+
+        if (contentRoot != null) {
+            LanguageModel scopedModel = scopedModels.computeIfAbsent(contentRoot, this::createScopedModel);
+            if (!scopedModel.getTables().isEmpty()) {
+                return scopedModel;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Directory this model was narrowed to by {@link #getScopedModel}, null for the model of the whole project.
+     */
+    @Nullable
+    public VirtualFile getRoot() {
+        return root;
+    }
+
+    public boolean isScoped() {
+        return root != null;
+    }
+
+    @NotNull
+    public Collection<String> getCategories() {
+        return categories.getKeys();
+    }
+
+    @NotNull
+    public Collection<String> getItems(@NotNull String category) {
+        return getItemStore(category).getKeys();
+    }
+
+    /**
+     * Sorted categories, for prefix and similarity lookups.
+     */
+    @NotNull
+    public LanguageKeyStore getCategoryStore() {
+        return categories;
+    }
+
+    /**
+     * Sorted items of a category, empty when the category does not exist.
+     */
+    @NotNull
+    public LanguageKeyStore getItemStore(@NotNull String category) {
+        LanguageKeyStore categoryItems = items.get(category);
+        return categoryItems != null ? categoryItems : LanguageKeyStore.EMPTY;
+    }
+
+    public boolean hasCategory(@NotNull String category) {
+        return items.containsKey(category);
+    }
+
+    public boolean hasItem(@NotNull String category, @NotNull String item) {
+        return getItemStore(category).contains(item);
+    }
+
+    /**
+     * Every category and "category.item" name, built once per snapshot.
+     */
+    @NotNull
+    public List<String> getKeyNames() {
+        return keyNames.getValue();
+    }
+
+    /**
+     * English text of an item, taken from the first english table that declares it with a constant text.
+     */
+    @Nullable
+    public String getText(@NotNull String category, @NotNull String item) {
+        for (LanguageTable table : tables) {
+            String text = table.getItemText(category, item);
+            if (text != null) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * English texts of many items at once, keyed by item key; keys without a text are left out.
+     * Every distinct key is looked up once, however often it is passed.
+     */
+    @NotNull
+    public Map<LanguageKey, String> getTexts(@NotNull Collection<LanguageKey> keys) {
+        Map<LanguageKey, String> texts = new HashMap<>();
+        Set<LanguageKey> seen = new HashSet<>();
+        for (LanguageKey key : keys) {
+            if (key.getItem() == null || !seen.add(key)) {
+                continue;
+            }
+
+            String text = getText(key.getCategory(), key.getItem());
+            if (text != null) {
+                texts.put(key, text);
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * Existing categories closest to a misspelled one, nearest first.
+     */
+    @NotNull
+    public List<String> getSimilarCategories(@NotNull String category, int limit) {
+        return categories.getSimilarKeys(category, limit);
+    }
+
+    /**
+     * Existing items of a category closest to a misspelled one, nearest first.
+     */
+    @NotNull
+    public List<String> getSimilarItems(@NotNull String category, @NotNull String item, int limit) {
+        return getItemStore(category).getSimilarKeys(item, limit);
+    }
+
+    /**
+     * Locales that lack an english category or item, empty when it is translated everywhere.
+     */
+    @NotNull
+    public List<String> getMissingLocales(@NotNull LanguageKey key) {
+        List<String> locales = missingTranslations.getValue().get(key);
+        return locales != null ? locales : Collections.emptyList();
+    }
+
+    /**
+     * Set difference between every english table and the locale tables in the same directory,
+     * computed once per snapshot.
+     */
+    @NotNull
+    private Map<LanguageKey, List<String>> computeMissingTranslations() {
+        Map<LanguageKey, List<String>> missing = new HashMap<>();
+
+        for (LanguageTable table : tables) {
+            VirtualFile directory = table.getFile().getParent();
+
+            for (LanguageTable localeTable : localeTables) {
+                if (!Objects.equals(directory, localeTable.getFile().getParent())) {
+                    continue;
+                }
+
+                String locale = localeTable.getLocale();
+                for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+                    LanguageCategory localeCategory = localeTable.getCategories().get(category.getKey());
+                    if (localeCategory == null) {
+                        addMissing(missing, LanguageKey.category(category.getKey()), locale);
+                    }
+
+                    for (String item : category.getValue().getItems().keySet()) {
+                        if (localeCategory == null || !localeCategory.getItems().containsKey(item)) {
+                            addMissing(missing, LanguageKey.item(category.getKey(), item), locale);
+                        }
+                    }
+                }
+            }
+        }
+
+        return missing;
+    }
+
+    @NotNull
+    private LanguageModel createScopedModel(@NotNull VirtualFile root) {
+        List<LanguageTable> scopedTables = new ArrayList<>();
+        for (LanguageTable table : tables) {
+            if (VfsUtilCore.isAncestor(root, table.getFile(), true)) {
+                scopedTables.add(table);
+            }
+        }
+
+        List<LanguageTable> scopedLocaleTables = new ArrayList<>();
+        for (LanguageTable table : localeTables) {
+            if (VfsUtilCore.isAncestor(root, table.getFile(), true)) {
+                scopedLocaleTables.add(table);
+            }
+        }
+
+        return new LanguageModel(scopedTables, scopedLocaleTables, previousScopedModels.remove(root), root);
+    }
+
+    @NotNull
+    private List<String> computeKeyNames() {
+        List<String> names = new ArrayList<>();
+        for (String category : categories.getKeys()) {
+            names.add(category);
+            for (String item : getItemStore(category).getKeys()) {
+                names.add(LanguageKey.item(category, item).toString());
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Categories whose item keys differ between a replaced table and its previous version.
+     */
+    @NotNull
+    private static Set<String> getChangedCategories(@NotNull List<LanguageTable> previousTables, @NotNull List<LanguageTable> tables) {
+        Map<VirtualFile, LanguageTable> previousByFile = new HashMap<>();
+        for (LanguageTable table : previousTables) {
+            previousByFile.put(table.getFile(), table);
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (LanguageTable table : tables) {
+            LanguageTable previousTable = previousByFile.remove(table.getFile());
+            if (previousTable == table) {
+                continue;
+            }
+
+            Map<String, LanguageCategory> previousCategories = previousTable != null ? previousTable.getCategories() : Collections.emptyMap();
+            for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+                LanguageCategory previousCategory = previousCategories.get(category.getKey());
+                if (previousCategory == null || !previousCategory.getItems().keySet().equals(category.getValue().getItems().keySet())) {
+                    changed.add(category.getKey());
+                }
+            }
+            for (String category : previousCategories.keySet()) {
+                if (!table.getCategories().containsKey(category)) {
+                    changed.add(category);
+                }
+            }
+        }
+
+        // tables that are gone
+        for (LanguageTable table : previousByFile.values()) {
+            changed.addAll(table.getCategories().keySet());
+        }
+
+        return changed;
+    }
+
+    private static void addMissing(@NotNull Map<LanguageKey, List<String>> missing, @NotNull LanguageKey key, @NotNull String locale) {
+        List<String> locales = missing.computeIfAbsent(key, k -> new ArrayList<>(1));
+        if (!locales.contains(locale)) {
+            locales.add(locale);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import eu.kloosterman.ideacelery.index.LanguageInclude;
+import eu.kloosterman.ideacelery.index.LanguageIncludeIndex;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Project level owner of the language model. Completion, resolve and inspections all
+ * read the same cached snapshot, which is only rebuilt after one of the tracked
+ * locale files changed. Every table merges a locale file with the files it requires or
+ * includes, as long as those are language part files themselves, see
+ * {@link LanguageKeyIndex#isLanguagePartFile}. A change to the content of one of those files only replaces the tables it
+ * belongs to, see {@link LanguageModel#LanguageModel(List, List, LanguageModel)}; creating,
+ * deleting or moving one, or a directory above one, rebuilds all tables. While the IDE is indexing, the last model
+ * built in smart mode is served instead, read from the {@link LanguageSnapshotStore} after
+ * a restart.
+ */
+public final class LanguageModelService implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(LanguageModelService.class);
+
+    private final Project project;
+    private final SimpleModificationTracker languageFilesTracker = new SimpleModificationTracker();
+    private final CachedValue<LanguageModel> model;
+    private final LanguageSnapshotStore snapshotStore;
+    private final ExecutorService snapshotWriter = AppExecutorUtil.createBoundedApplicationPoolExecutor("Celery Language Snapshot", 1);
+    private final AtomicReference<LanguageModel> pendingSnapshot = new AtomicReference<>();
+    private volatile LanguageModel dumbModel;
+
+    // what the next build has to read again, handed off to a build under handoffLock
+    private final Set<VirtualFile> changedFiles = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildAll = new AtomicBoolean(true);
+    private final Object handoffLock = new Object();
+    // the model the next build patches, only replaced under handoffLock
+    private volatile LanguageModel lastBuiltModel;
+
+    public LanguageModelService(@NotNull Project project) {
+        this.project = project;
+        this.snapshotStore = new LanguageSnapshotStore(project);
+        this.model = CachedValuesManager.getManager(project).createCachedValue(
+            () -> {
+                LanguageModel languageModel = buildModel();
+                // racing builds may be cached out of order, and changes may arrive while building
+                ModificationTracker current = () -> isCurrent(languageModel) ? 0 : ModificationTracker.EVER_CHANGED.getModificationCount();
+                return CachedValueProvider.Result.create(languageModel, languageFilesTracker, current);
+            },
+            false
+        );
+
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                onPsiChange(event.getFile());
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                onPsiChange(event.getFile());
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                onPsiChange(event.getFile());
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                onPsiChange(event.getFile());
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                onPsiChange(event.getFile());
+            }
+        }, this);
+
+        MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                boolean changed = false;
+                for (VFileEvent event : events) {
+                    if (isLanguageFileEvent(event)) {
+                        if (event instanceof VFileContentChangeEvent) {
+                            changedFiles.add(((VFileContentChangeEvent) event).getFile());
+                        } else {
+                            rebuildAll.set(true);
+                        }
+                        changed = true;
+                    }
+                }
+
+                if (changed) {
+                    languageFilesTracker.incModificationCount();
+                }
+            }
+        });
+        connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+            @Override
+            public void exitDumbMode() {
+                // index content may have changed while indexing
+                rebuildAll.set(true);
+                languageFilesTracker.incModificationCount();
+            }
+        });
+    }
+
+    public static LanguageModelService getInstance(@NotNull Project project) {
+        return project.getService(LanguageModelService.class);
+    }
+
+    /**
+     * Current language model snapshot; must be called inside a read action. In dumb mode this
+     * is the last model built while the indexes were available, which may be slightly stale.
+     */
+    @NotNull
+    public LanguageModel getModel() {
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        metrics.increment(LanguageMetrics.Counter.MODEL_REQUEST);
+
+        if (DumbService.isDumb(project) && !model.hasUpToDateValue()) {
+            metrics.increment(LanguageMetrics.Counter.DUMB_MODEL_REQUEST);
+            return getDumbModel();
+        }
+
+        try {
+            return model.getValue();
+        } catch (IndexNotReadyException e) {
+            metrics.increment(LanguageMetrics.Counter.DUMB_MODEL_REQUEST);
+            return getDumbModel();
+        }
+    }
+
+    /**
+     * Language model of the application the given element belongs to, see {@link LanguageModel#getScopedModel}.
+     */
+    @NotNull
+    public LanguageModel getModel(@NotNull PsiElement context) {
+        PsiFile file = context.getContainingFile();
+        return file != null ? getModel(file.getOriginalFile().getViewProvider().getVirtualFile()) : getModel();
+    }
+
+    /**
+     * Language model of the application the given file belongs to, see {@link LanguageModel#getScopedModel}.
+     */
+    @NotNull
+    public LanguageModel getModel(@NotNull VirtualFile file) {
+        LanguageModel languageModel = getModel();
+        if (!file.isInLocalFileSystem()) {
+            return languageModel;
+        }
+
+        VirtualFile contentRoot = ProjectFileIndex.getInstance(project).getContentRootForFile(file);
+        return languageModel.getScopedModel(file, contentRoot);
+    }
+
+    /**
+     * Tracker that changes whenever one of the language files changes, for dependent caches.
+     */
+    @NotNull
+    public ModificationTracker getModificationTracker() {
+        return languageFilesTracker;
+    }
+
+    /**
+     * Builds may run concurrently, each takes over the changes pending when it starts. A build
+     * whose base model was replaced by another build in the meantime hands its changes back and
+     * patches the newer model, so a published model never drops the changes of another.
+     */
+    @NotNull
+    private LanguageModel buildModel() {
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        metrics.increment(LanguageMetrics.Counter.MODEL_BUILD);
+        long start = System.nanoTime();
+
+        LanguageModel languageModel;
+        while (true) {
+            LanguageModel base;
+            boolean all;
+            Set<VirtualFile> changed;
+            // changes arriving from here on are marked again and trigger the next build
+            synchronized (handoffLock) {
+                base = lastBuiltModel;
+                all = rebuildAll.getAndSet(false) || base == null;
+                changed = new HashSet<>(changedFiles);
+                changedFiles.removeAll(changed);
+            }
+
+            try {
+                if (all) {
+                    languageModel = createModel();
+                } else {
+                    metrics.increment(LanguageMetrics.Counter.MODEL_PATCH);
+                    languageModel = new LanguageModel(
+                        patchTables(base.getTables(), changed),
+                        patchTables(base.getLocaleTables(), changed),
+                        base
+                    );
+                }
+            } catch (RuntimeException e) {
+                // cancelled or indexes not ready, keep the changes for the next build
+                handBack(all, changed);
+                throw e;
+            }
+
+            synchronized (handoffLock) {
+                if (lastBuiltModel == base) {
+                    lastBuiltModel = languageModel;
+                    dumbModel = languageModel;
+                    break;
+                }
+            }
+            handBack(all, changed);
+        }
+        metrics.record(LanguageMetrics.Timer.MODEL_BUILD, start);
+
+        scheduleSnapshotWrite(languageModel);
+        return languageModel;
+    }
+
+    private void handBack(boolean all, @NotNull Set<VirtualFile> changed) {
+        changedFiles.addAll(changed);
+        if (all) {
+            rebuildAll.set(true);
+        }
+    }
+
+    /**
+     * Whether the model is the last one built and no change is waiting for the next build.
+     */
+    private boolean isCurrent(@NotNull LanguageModel languageModel) {
+        return languageModel == lastBuiltModel && !rebuildAll.get() && changedFiles.isEmpty();
+    }
+
+    @NotNull
+    private LanguageModel createModel() {
+        List<LanguageTable> tables = new ArrayList<>();
+        List<LanguageTable> localeTables = new ArrayList<>();
+        for (VirtualFile file : LanguageKeyIndex.getLanguageFiles(project)) {
+            tables.add(createTable(file));
+
+            for (VirtualFile localeFile : LanguageKeyIndex.getLocaleFiles(file)) {
+                localeTables.add(createTable(localeFile));
+            }
+        }
+
+        return new LanguageModel(tables, localeTables);
+    }
+
+    /**
+     * The given tables, with the tables that contain a changed file read again from the index.
+     */
+    @NotNull
+    private List<LanguageTable> patchTables(@NotNull List<LanguageTable> tables, @NotNull Set<VirtualFile> changed) {
+        List<LanguageTable> patched = new ArrayList<>(tables.size());
+        for (LanguageTable table : tables) {
+            boolean stale = !Collections.disjoint(table.getFiles(), changed) && table.getFile().isValid();
+            patched.add(stale ? createTable(table.getFile()) : table);
+        }
+        return patched;
+    }
+
+    /**
+     * Table of a locale file merged with the files it includes, following the include graph once.
+     */
+    @NotNull
+    private LanguageTable createTable(@NotNull VirtualFile file) {
+        Map<String, LanguageCategory> categories = new HashMap<>();
+        Map<String, VirtualFile> categoryFiles = new HashMap<>();
+        Set<VirtualFile> visited = new LinkedHashSet<>();
+        mergeFile(file, categories, categoryFiles, visited);
+
+        categoryFiles.values().removeIf(file::equals);
+        visited.remove(file);
+        return new LanguageTable(file, categories, categoryFiles, visited);
+    }
+
+    /**
+     * Add the categories of a file and of the files it includes in text order, so later
+     * declarations replace earlier ones as array_merge() does.
+     */
+    private void mergeFile(@NotNull VirtualFile file, @NotNull Map<String, LanguageCategory> categories,
+                           @NotNull Map<String, VirtualFile> categoryFiles, @NotNull Set<VirtualFile> visited) {
+        if (!visited.add(file)) {
+            // include cycle
+            return;
+        }
+
+        List<Map.Entry<String, LanguageCategory>> declared = new ArrayList<>(LanguageKeyIndex.getCategories(project, file).entrySet());
+        List<LanguageInclude> includes = LanguageIncludeIndex.getIncludes(project, file);
+        if (!includes.isEmpty()) {
+            declared.sort(Comparator.comparingInt(category -> category.getValue().getOffset()));
+        }
+
+        int next = 0;
+        for (LanguageInclude include : includes) {
+            for (; next < declared.size() && declared.get(next).getValue().getOffset() < include.getOffset(); next++) {
+                categories.put(declared.get(next).getKey(), declared.get(next).getValue());
+                categoryFiles.put(declared.get(next).getKey(), file);
+            }
+
+            VirtualFile directory = file.getParent();
+            VirtualFile includedFile = directory != null ? directory.findFileByRelativePath(include.getPath()) : null;
+            if (includedFile == null || includedFile.isDirectory()) {
+                continue;
+            }
+
+            if (LanguageKeyIndex.isLanguagePartFile(includedFile)) {
+                mergeFile(includedFile, categories, categoryFiles, visited);
+            } else {
+                // not indexed and not watched for changes, its categories stay unknown
+                LOG.debug("Include outside the languages directory ignored: " + includedFile.getPath() + " in " + file.getPath());
+            }
+        }
+
+        for (; next < declared.size(); next++) {
+            categories.put(declared.get(next).getKey(), declared.get(next).getValue());
+            categoryFiles.put(declared.get(next).getKey(), file);
+        }
+    }
+
+    @NotNull
+    private LanguageModel getDumbModel() {
+        LanguageModel languageModel = dumbModel;
+        if (languageModel == null) {
+            // first dumb mode request after opening the project
+            synchronized (this) {
+                languageModel = dumbModel;
+                if (languageModel == null) {
+                    LanguageModel stored = snapshotStore.read();
+                    languageModel = stored != null ? stored : LanguageModel.EMPTY;
+                    dumbModel = languageModel;
+                }
+            }
+        }
+        return languageModel;
+    }
+
+    /**
+     * Write the model to disk in the background; models built while a write is pending replace
+     * it, so a burst of edits results in a single write of the latest one.
+     */
+    private void scheduleSnapshotWrite(@NotNull LanguageModel languageModel) {
+        if (pendingSnapshot.getAndSet(languageModel) == null) {
+            snapshotWriter.execute(() -> {
+                LanguageModel pending = pendingSnapshot.getAndSet(null);
+                if (pending != null && !project.isDisposed()) {
+                    snapshotStore.write(pending);
+                }
+            });
+        }
+    }
+
+    private void onPsiChange(@Nullable PsiFile file) {
+        if (file == null) {
+            return;
+        }
+
+        VirtualFile virtualFile = file.getViewProvider().getVirtualFile();
+        if (virtualFile != null && LanguageKeyIndex.isLanguagePartFile(virtualFile)) {
+            changedFiles.add(virtualFile);
+            languageFilesTracker.incModificationCount();
+        }
+    }
+
+    private boolean isLanguageFileEvent(@NotNull VFileEvent event) {
+        if (LanguageKeyIndex.isLanguagePartFilePath(event.getPath())) {
+            return true;
+        }
+
+        if (event instanceof VFileMoveEvent) {
+            return LanguageKeyIndex.isLanguagePartFilePath(((VFileMoveEvent) event).getOldPath()) || isLanguageDirectoryEvent(event);
+        }
+
+        if (event instanceof VFilePropertyChangeEvent) {
+            return LanguageKeyIndex.isLanguagePartFilePath(((VFilePropertyChangeEvent) event).getOldPath()) || isLanguageDirectoryEvent(event);
+        }
+
+        return isLanguageDirectoryEvent(event);
+    }
+
+    /**
+     * A single event of a directory stands for all files below it: creating, deleting, moving
+     * or renaming a languages directory, one of its subdirectories or one of its ancestors.
+     */
+    private boolean isLanguageDirectoryEvent(@NotNull VFileEvent event) {
+        VirtualFile file = event.getFile();
+        boolean directory = event instanceof VFileCreateEvent ? ((VFileCreateEvent) event).isDirectory() : file != null && file.isDirectory();
+        if (!directory || event instanceof VFilePropertyChangeEvent && !((VFilePropertyChangeEvent) event).isRename()) {
+            return false;
+        }
+
+        List<String> paths = new ArrayList<>();
+        paths.add(event.getPath());
+        if (event instanceof VFileMoveEvent) {
+            paths.add(((VFileMoveEvent) event).getOldPath());
+        } else if (event instanceof VFilePropertyChangeEvent) {
+            paths.add(((VFilePropertyChangeEvent) event).getOldPath());
+        }
+
+        for (String path : paths) {
+            if (isInLanguagesDirectory(path) || holdsLanguageFile(path)) {
+                return true;
+            }
+        }
+
+        // created, copied or moved in together with its language files
+        return file != null && file.isValid() && file.findChild(LanguageKeyIndex.LANGUAGES_DIRECTORY) != null;
+    }
+
+    private static boolean isInLanguagesDirectory(@NotNull String path) {
+        String directory = "/" + LanguageKeyIndex.LANGUAGES_DIRECTORY;
+        return path.endsWith(directory) || path.contains(directory + "/");
+    }
+
+    /**
+     * Whether one of the locale files of the last model lies below the directory path.
+     */
+    private boolean holdsLanguageFile(@NotNull String directoryPath) {
+        LanguageModel languageModel = dumbModel;
+        if (languageModel == null) {
+            return false;
+        }
+
+        String prefix = directoryPath + "/";
+        for (List<LanguageTable> tables : List.of(languageModel.getTables(), languageModel.getLocaleTables())) {
+            for (LanguageTable table : tables) {
+                if (table.getFile().getPath().startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
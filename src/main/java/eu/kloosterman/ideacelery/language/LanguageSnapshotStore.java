@@ -0,0 +1,205 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Compact binary copy of the english language tables in the IDE system directory, used
+ * to serve completion and resolve while the indexes are not available. Every table is
+ * stored with the timestamp and length its files had when it was written, including the
+ * files it requires; a table whose files changed since is still served, navigation
+ * verifies the key at the stored offset.
+ */
+public final class LanguageSnapshotStore {
+
+    private static final Logger LOG = Logger.getInstance(LanguageSnapshotStore.class);
+
+    private static final int VERSION = 3;
+
+    private final Path path;
+
+    public LanguageSnapshotStore(@NotNull Project project) {
+        this.path = Path.of(PathManager.getSystemPath(), "ideacelery", project.getLocationHash() + ".languages");
+    }
+
+    /**
+     * Replace the snapshot with the given model, unless it was already written from the same file stamps.
+     */
+    public void write(@NotNull LanguageModel model) {
+        if (isUpToDate(model)) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                // header with the file stamps, so up to date checks do not read the tables
+                DataInputOutputUtil.writeINT(out, VERSION);
+                DataInputOutputUtil.writeINT(out, model.getTables().size());
+                for (LanguageTable table : model.getTables()) {
+                    DataInputOutputUtil.writeINT(out, table.getFiles().size());
+                    for (VirtualFile file : table.getFiles()) {
+                        IOUtil.writeUTF(out, file.getUrl());
+                        DataInputOutputUtil.writeLONG(out, file.getTimeStamp());
+                        DataInputOutputUtil.writeLONG(out, file.getLength());
+                    }
+                }
+
+                for (LanguageTable table : model.getTables()) {
+                    List<VirtualFile> files = new ArrayList<>(table.getFiles());
+                    DataInputOutputUtil.writeINT(out, table.getCategories().size());
+
+                    for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+                        IOUtil.writeUTF(out, category.getKey());
+                        DataInputOutputUtil.writeINT(out, files.indexOf(table.getFile(category.getKey())));
+                        DataInputOutputUtil.writeINT(out, category.getValue().getOffset());
+                        DataInputOutputUtil.writeINT(out, category.getValue().getItems().size());
+
+                        for (Map.Entry<String, Integer> item : category.getValue().getItems().entrySet()) {
+                            IOUtil.writeUTF(out, item.getKey());
+                            DataInputOutputUtil.writeINT(out, item.getValue());
+                        }
+
+                        DataInputOutputUtil.writeINT(out, category.getValue().getTexts().size());
+                        for (Map.Entry<String, String> text : category.getValue().getTexts().entrySet()) {
+                            IOUtil.writeUTF(out, text.getKey());
+                            IOUtil.writeUTF(out, text.getValue());
+                        }
+                    }
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not write language snapshot " + path, e);
+        }
+    }
+
+    /**
+     * The stored model, or null when there is no usable snapshot. Tables of files that no
+     * longer exist are dropped.
+     */
+    @Nullable
+    public LanguageModel read() {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (DataInputOutputUtil.readINT(in) != VERSION) {
+                return null;
+            }
+
+            int tableCount = DataInputOutputUtil.readINT(in);
+            List<List<VirtualFile>> tableFiles = new ArrayList<>(tableCount);
+            for (int i = 0; i < tableCount; i++) {
+                int fileCount = DataInputOutputUtil.readINT(in);
+                List<VirtualFile> files = new ArrayList<>(fileCount);
+                for (int f = 0; f < fileCount; f++) {
+                    VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(IOUtil.readUTF(in));
+                    files.add(file != null && file.isValid() ? file : null);
+                    DataInputOutputUtil.readLONG(in);
+                    DataInputOutputUtil.readLONG(in);
+                }
+                tableFiles.add(files);
+            }
+
+            List<LanguageTable> tables = new ArrayList<>(tableCount);
+            for (List<VirtualFile> files : tableFiles) {
+                int categoryCount = DataInputOutputUtil.readINT(in);
+
+                Map<String, LanguageCategory> categories = new HashMap<>(categoryCount);
+                Map<String, VirtualFile> categoryFiles = new HashMap<>();
+                for (int c = 0; c < categoryCount; c++) {
+                    String category = IOUtil.readUTF(in);
+                    int fileIndex = DataInputOutputUtil.readINT(in);
+                    int offset = DataInputOutputUtil.readINT(in);
+                    int itemCount = DataInputOutputUtil.readINT(in);
+
+                    Map<String, Integer> items = new LinkedHashMap<>(itemCount);
+                    for (int j = 0; j < itemCount; j++) {
+                        String item = IOUtil.readUTF(in);
+                        items.put(item, DataInputOutputUtil.readINT(in));
+                    }
+
+                    int textCount = DataInputOutputUtil.readINT(in);
+                    Map<String, String> texts = new HashMap<>(textCount);
+                    for (int j = 0; j < textCount; j++) {
+                        String item = IOUtil.readUTF(in);
+                        texts.put(item, IOUtil.readUTF(in));
+                    }
+
+                    // categories of a required file that no longer exists are dropped
+                    VirtualFile categoryFile = fileIndex >= 0 && fileIndex < files.size() ? files.get(fileIndex) : null;
+                    if (categoryFile != null) {
+                        categories.put(category, new LanguageCategory(offset, items, texts));
+                        if (fileIndex > 0) {
+                            categoryFiles.put(category, categoryFile);
+                        }
+                    }
+                }
+
+                VirtualFile file = files.isEmpty() ? null : files.get(0);
+                if (file != null) {
+                    List<VirtualFile> includedFiles = ContainerUtil.filter(files.subList(1, files.size()), Objects::nonNull);
+                    tables.add(new LanguageTable(file, categories, categoryFiles, includedFiles));
+                }
+            }
+
+            return new LanguageModel(tables, Collections.emptyList());
+        } catch (IOException e) {
+            LOG.info("Ignoring unreadable language snapshot " + path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Whether the snapshot on disk was taken from exactly these files, by comparing the header stamps.
+     */
+    private boolean isUpToDate(@NotNull LanguageModel model) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (DataInputOutputUtil.readINT(in) != VERSION || DataInputOutputUtil.readINT(in) != model.getTables().size()) {
+                return false;
+            }
+
+            for (LanguageTable table : model.getTables()) {
+                if (DataInputOutputUtil.readINT(in) != table.getFiles().size()) {
+                    return false;
+                }
+
+                for (VirtualFile file : table.getFiles()) {
+                    if (!file.getUrl().equals(IOUtil.readUTF(in))
+                        || DataInputOutputUtil.readLONG(in) != file.getTimeStamp()
+                        || DataInputOutputUtil.readLONG(in) != file.getLength()) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Category and item table of a single locale, merged from its locale file and the files it
+ * includes. Every category remembers the file it was declared in; its offsets belong to that file.
+ */
+public final class LanguageTable {
+
+    private final VirtualFile file;
+    private final String locale;
+    private final Map<String, LanguageCategory> categories;
+    private final Map<String, VirtualFile> includedCategoryFiles;
+    private final Set<VirtualFile> files;
+    private volatile Map<VirtualFile, Map<Integer, LanguageKey>> keysByOffset;
+
+    public LanguageTable(@NotNull VirtualFile file, @NotNull Map<String, LanguageCategory> categories) {
+        this(file, categories, Collections.emptyMap(), Collections.emptySet());
+    }
+
+    /**
+     * @param includedCategoryFiles file of every category that is not declared in the locale file itself
+     * @param includedFiles         all files followed from the locale file, whether they declared a category or not
+     */
+    public LanguageTable(@NotNull VirtualFile file, @NotNull Map<String, LanguageCategory> categories,
+                         @NotNull Map<String, VirtualFile> includedCategoryFiles, @NotNull Collection<VirtualFile> includedFiles) {
+        this.file = file;
+        this.locale = LanguageKeyIndex.getLocale(file);
+        this.categories = Collections.unmodifiableMap(categories);
+        this.includedCategoryFiles = Collections.unmodifiableMap(includedCategoryFiles);
+
+        Set<VirtualFile> allFiles = new LinkedHashSet<>();
+        allFiles.add(file);
+        allFiles.addAll(includedFiles);
+        this.files = Collections.unmodifiableSet(allFiles);
+    }
+
+    /**
+     * The locale file itself.
+     */
+    @NotNull
+    public VirtualFile getFile() {
+        return file;
+    }
+
+    /**
+     * File declaring the category, the locale file unless the category comes from an included file.
+     */
+    @NotNull
+    public VirtualFile getFile(@NotNull String category) {
+        VirtualFile categoryFile = includedCategoryFiles.get(category);
+        return categoryFile != null ? categoryFile : file;
+    }
+
+    /**
+     * The locale file and all files it includes, directly or not.
+     */
+    @NotNull
+    public Set<VirtualFile> getFiles() {
+        return files;
+    }
+
+    @NotNull
+    public String getLocale() {
+        return locale;
+    }
+
+    @NotNull
+    public Map<String, LanguageCategory> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Offset of the category key literal, or null when the category is not declared in this file.
+     */
+    @Nullable
+    public Integer getCategoryOffset(@NotNull String category) {
+        LanguageCategory languageCategory = categories.get(category);
+        return languageCategory != null ? languageCategory.getOffset() : null;
+    }
+
+    /**
+     * Offset of the item key literal, or null when the item is not declared in the category.
+     */
+    @Nullable
+    public Integer getItemOffset(@NotNull String category, @NotNull String item) {
+        LanguageCategory languageCategory = categories.get(category);
+        return languageCategory != null ? languageCategory.getItems().get(item) : null;
+    }
+
+    /**
+     * Text of an item, or null when it is not declared in the category or has no constant text.
+     */
+    @Nullable
+    public String getItemText(@NotNull String category, @NotNull String item) {
+        LanguageCategory languageCategory = categories.get(category);
+        return languageCategory != null ? languageCategory.getTexts().get(item) : null;
+    }
+
+    /**
+     * The category or item whose key literal starts at the given offset of one of the files of this table.
+     */
+    @Nullable
+    public LanguageKey getKeyAt(@NotNull VirtualFile keyFile, int offset) {
+        Map<VirtualFile, Map<Integer, LanguageKey>> keys = keysByOffset;
+        if (keys == null) {
+            keys = new HashMap<>();
+            for (Map.Entry<String, LanguageCategory> category : categories.entrySet()) {
+                Map<Integer, LanguageKey> fileKeys = keys.computeIfAbsent(getFile(category.getKey()), f -> new HashMap<>());
+                fileKeys.put(category.getValue().getOffset(), LanguageKey.category(category.getKey()));
+                for (Map.Entry<String, Integer> item : category.getValue().getItems().entrySet()) {
+                    fileKeys.put(item.getValue(), LanguageKey.item(category.getKey(), item.getKey()));
+                }
+            }
+            keysByOffset = keys;
+        }
+
+        Map<Integer, LanguageKey> fileKeys = keys.get(keyFile);
+        return fileKeys != null ? fileKeys.get(offset) : null;
+    }
+}
@@ -0,0 +1,176 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.jetbrains.php.lang.PhpFileType;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import eu.kloosterman.ideacelery.index.LanguageUsageIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set operations between the keys of the language tables and the keys used by
+ * Language::get() calls, as recorded in {@link LanguageUsageIndex}.
+ */
+public final class LanguageUsages {
+
+    private static final Key<CachedValue<Map<VirtualFile, Set<LanguageKey>>>> APPLICATION_USED_KEYS = Key.create("ideacelery.applicationUsedKeys");
+
+    private LanguageUsages() {
+    }
+
+    /**
+     * All keys used by Language::get() calls in the project, of any application, cached until
+     * the next PSI change; see {@link #isUsed} for a single application. The index may still
+     * report keys of calls that were just removed, so this errs on the side of "used".
+     */
+    @NotNull
+    public static Set<LanguageKey> getUsedKeys(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result.create(
+            collectUsedKeys(project),
+            PsiModificationTracker.getInstance(project)
+        ));
+    }
+
+    /**
+     * Whether a Language::get() call of the application the given model belongs to uses the key.
+     * The project wide set of used keys answers most keys; for a model scoped to one application,
+     * a key that is used somewhere is checked against the keys used by that application.
+     */
+    public static boolean isUsed(@NotNull Project project, @NotNull LanguageModel model, @NotNull Set<LanguageKey> usedKeys, @NotNull LanguageKey key) {
+        if (!usedKeys.contains(key)) {
+            return false;
+        }
+
+        return !model.isScoped() || getApplicationUsedKeys(project, model).contains(key);
+    }
+
+    /**
+     * Keys of the english language files that no Language::get() call of their application uses.
+     * An unused category is reported once, its items are not listed separately.
+     */
+    @NotNull
+    public static List<LanguageKeyLocation> findUnusedKeys(@NotNull Project project, @NotNull LanguageModel model, @NotNull Set<LanguageKey> usedKeys, @Nullable ProgressIndicator indicator) {
+        LanguageModelService service = LanguageModelService.getInstance(project);
+        List<LanguageKeyLocation> unused = new ArrayList<>();
+
+        List<LanguageTable> tables = model.getTables();
+        for (int i = 0; i < tables.size(); i++) {
+            LanguageTable table = tables.get(i);
+            LanguageModel tableModel = service.getModel(table.getFile());
+
+            for (Map.Entry<String, LanguageCategory> category : table.getCategories().entrySet()) {
+                ProgressManager.checkCanceled();
+
+                LanguageKey categoryKey = LanguageKey.category(category.getKey());
+                if (!isUsed(project, tableModel, usedKeys, categoryKey)) {
+                    unused.add(new LanguageKeyLocation(categoryKey, table.getFile(category.getKey()), category.getValue().getOffset()));
+                    continue;
+                }
+
+                for (Map.Entry<String, Integer> item : category.getValue().getItems().entrySet()) {
+                    LanguageKey itemKey = LanguageKey.item(category.getKey(), item.getKey());
+                    if (!isUsed(project, tableModel, usedKeys, itemKey)) {
+                        unused.add(new LanguageKeyLocation(itemKey, table.getFile(category.getKey()), item.getValue()));
+                    }
+                }
+            }
+
+            if (indicator != null) {
+                indicator.setFraction((double) (i + 1) / tables.size());
+            }
+        }
+
+        return unused;
+    }
+
+    /**
+     * Number of Language::get() call sites using the key, counting only calls of the
+     * application the given model belongs to. One lookup of the key in the usage index, no
+     * file is loaded.
+     */
+    public static int countUsages(@NotNull Project project, @NotNull LanguageModel model, @NotNull LanguageKey key) {
+        LanguageModelService service = LanguageModelService.getInstance(project);
+
+        int count = 0;
+        for (Map.Entry<VirtualFile, List<Integer>> usage : LanguageUsageIndex.getUsages(project, key, GlobalSearchScope.projectScope(project)).entrySet()) {
+            if (isSameApplication(service, usage.getKey(), model)) {
+                count += usage.getValue().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the calling file uses the language files of the model; calls of another
+     * application use a key that only shares its name.
+     */
+    private static boolean isSameApplication(@NotNull LanguageModelService service, @NotNull VirtualFile file, @NotNull LanguageModel model) {
+        return !Collections.disjoint(service.getModel(file).getTables(), model.getTables());
+    }
+
+    /**
+     * Keys used by the calls of the application a scoped model belongs to, cached per root until
+     * the next PSI change.
+     */
+    @NotNull
+    private static Set<LanguageKey> getApplicationUsedKeys(@NotNull Project project, @NotNull LanguageModel model) {
+        Map<VirtualFile, Set<LanguageKey>> byRoot = CachedValuesManager.getManager(project).getCachedValue(project, APPLICATION_USED_KEYS,
+            () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(), PsiModificationTracker.getInstance(project)), false);
+        return byRoot.computeIfAbsent(Objects.requireNonNull(model.getRoot()), root -> collectUsedKeys(project, model));
+    }
+
+    @NotNull
+    private static Set<LanguageKey> collectUsedKeys(@NotNull Project project) {
+        long start = System.nanoTime();
+
+        Set<LanguageKey> keys = new HashSet<>();
+        FileBasedIndex.getInstance().processAllKeys(LanguageUsageIndex.NAME, key -> {
+            ProgressManager.checkCanceled();
+            keys.add(key);
+            return true;
+        }, GlobalSearchScope.projectScope(project), null);
+
+        LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        return keys;
+    }
+
+    /**
+     * One pass over the usage index data of the PHP files, keeping the keys of files that use the
+     * language files of the model. The key listing of {@link #collectUsedKeys(Project)} cannot be
+     * narrowed to files, so the files are listed instead.
+     */
+    @NotNull
+    private static Set<LanguageKey> collectUsedKeys(@NotNull Project project, @NotNull LanguageModel model) {
+        long start = System.nanoTime();
+
+        LanguageModelService service = LanguageModelService.getInstance(project);
+        FileBasedIndex index = FileBasedIndex.getInstance();
+
+        Set<LanguageKey> keys = new HashSet<>();
+        for (VirtualFile file : FileTypeIndex.getFiles(PhpFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+            ProgressManager.checkCanceled();
+            Map<LanguageKey, List<Integer>> usages = index.getFileData(LanguageUsageIndex.NAME, file, project);
+            if (!usages.isEmpty() && isSameApplication(service, file, model)) {
+                keys.addAll(usages.keySet());
+            }
+        }
+
+        LanguageMetrics.getInstance().record(LanguageMetrics.Timer.INDEX_QUERY, start);
+        return keys;
+    }
+}
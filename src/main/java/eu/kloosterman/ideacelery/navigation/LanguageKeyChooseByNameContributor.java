@@ -0,0 +1,86 @@
+package eu.kloosterman.ideacelery.navigation;
+
+import com.intellij.navigation.ChooseByNameContributorEx;
+import com.intellij.navigation.NavigationItem;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FindSymbolParameters;
+import com.intellij.util.indexing.IdFilter;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageKeyLocation;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lists every category and "category.item" key in Go to Symbol and Search Everywhere.
+ * Names come from the cached language model, which is built from the key index, and
+ * matching elements point at the indexed key offsets.
+ */
+public class LanguageKeyChooseByNameContributor implements ChooseByNameContributorEx {
+
+    @Override
+    public void processNames(@NotNull Processor<? super String> processor, @NotNull GlobalSearchScope scope, @Nullable IdFilter filter) {
+        Project project = scope.getProject();
+        if (project == null) {
+            return;
+        }
+
+        for (String name : LanguageModelService.getInstance(project).getModel().getKeyNames()) {
+            ProgressManager.checkCanceled();
+            if (!processor.process(name)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void processElementsWithName(@NotNull String name, @NotNull Processor<? super NavigationItem> processor, @NotNull FindSymbolParameters parameters) {
+        Project project = parameters.getProject();
+        LanguageModel model = LanguageModelService.getInstance(project).getModel();
+        GlobalSearchScope scope = parameters.getSearchScope();
+
+        LanguageKey key = toKey(model, name);
+        if (key == null) {
+            return;
+        }
+
+        for (LanguageTable table : model.getTables()) {
+            VirtualFile file = table.getFile(key.getCategory());
+            if (!scope.contains(file)) {
+                continue;
+            }
+
+            String item = key.getItem();
+            Integer offset = item == null ? table.getCategoryOffset(key.getCategory()) : table.getItemOffset(key.getCategory(), item);
+            if (offset != null && !processor.process(new LanguageKeyNavigationItem(project, new LanguageKeyLocation(key, file, offset)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Key of a name from {@link LanguageModel#getKeyNames()}; categories may contain dots themselves.
+     */
+    @Nullable
+    private static LanguageKey toKey(@NotNull LanguageModel model, @NotNull String name) {
+        if (model.hasCategory(name)) {
+            return LanguageKey.category(name);
+        }
+
+        for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+            String category = name.substring(0, dot);
+            String item = name.substring(dot + 1);
+            if (model.hasItem(category, item)) {
+                return LanguageKey.item(category, item);
+            }
+        }
+
+        return null;
+    }
+}
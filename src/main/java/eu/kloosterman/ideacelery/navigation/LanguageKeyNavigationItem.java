@@ -0,0 +1,77 @@
+package eu.kloosterman.ideacelery.navigation;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.navigation.ItemPresentation;
+import com.intellij.navigation.NavigationItem;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import eu.kloosterman.ideacelery.language.LanguageKeyLocation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+
+/**
+ * Go to Symbol entry of a language key. Navigation opens the language file at the indexed
+ * offset of the key literal; no PSI is built for the file until the editor needs it.
+ */
+public final class LanguageKeyNavigationItem implements NavigationItem, ItemPresentation {
+
+    private final Project project;
+    private final LanguageKeyLocation location;
+
+    public LanguageKeyNavigationItem(@NotNull Project project, @NotNull LanguageKeyLocation location) {
+        this.project = project;
+        this.location = location;
+    }
+
+    @NotNull
+    @Override
+    public String getName() {
+        return location.getKey().toString();
+    }
+
+    @NotNull
+    @Override
+    public ItemPresentation getPresentation() {
+        return this;
+    }
+
+    @Override
+    public void navigate(boolean requestFocus) {
+        new OpenFileDescriptor(project, location.getFile(), location.getOffset()).navigate(requestFocus);
+    }
+
+    @Override
+    public boolean canNavigate() {
+        return location.getFile().isValid();
+    }
+
+    @Override
+    public boolean canNavigateToSource() {
+        return canNavigate();
+    }
+
+    @NotNull
+    @Override
+    public String getPresentableText() {
+        return getName();
+    }
+
+    @Nullable
+    @Override
+    public String getLocationString() {
+        VirtualFile baseDir = ProjectUtil.guessProjectDir(project);
+        String path = baseDir != null ? VfsUtilCore.getRelativePath(location.getFile(), baseDir) : null;
+        return path != null ? path : location.getFile().getPresentableUrl();
+    }
+
+    @NotNull
+    @Override
+    public Icon getIcon(boolean unused) {
+        return AllIcons.Nodes.Property;
+    }
+}
@@ -0,0 +1,84 @@
+package eu.kloosterman.ideacelery.pattern;
+
+import com.intellij.patterns.PatternCondition;
+import com.intellij.patterns.PlatformPatterns;
+import com.intellij.patterns.PsiElementPattern;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.ProcessingContext;
+import com.jetbrains.php.lang.PhpLanguage;
+import com.jetbrains.php.lang.psi.elements.ClassReference;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.ParameterList;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Element patterns for the string arguments of Language::get() calls. They only
+ * look at the direct parents of an element, so non-matching positions are rejected
+ * without touching any language file.
+ */
+public final class LanguagePatterns {
+
+    private static final PatternCondition<MethodReference> LANGUAGE_GET = new PatternCondition<>("Language::get") {
+        @Override
+        public boolean accepts(@NotNull MethodReference method, ProcessingContext context) {
+            return isLanguageGet(method);
+        }
+    };
+
+    private LanguagePatterns() {
+    }
+
+    /**
+     * String literal passed directly as argument to Language::get().
+     */
+    @NotNull
+    public static PsiElementPattern.Capture<StringLiteralExpression> languageGetArgument() {
+        return PlatformPatterns.psiElement(StringLiteralExpression.class)
+            .withParent(PlatformPatterns.psiElement(ParameterList.class)
+                .withParent(PlatformPatterns.psiElement(MethodReference.class).with(LANGUAGE_GET)));
+    }
+
+    /**
+     * Leaf inside a string literal argument of Language::get(), as seen by completion.
+     */
+    @NotNull
+    public static PsiElementPattern.Capture<PsiElement> languageGetArgumentLeaf() {
+        return PlatformPatterns.psiElement()
+            .withLanguage(PhpLanguage.INSTANCE)
+            .withParent(languageGetArgument());
+    }
+
+    /**
+     * Category or item key denoted by a string argument of Language::get(), or null for any other
+     * literal. The item is the first argument, its category the second one.
+     */
+    @Nullable
+    public static LanguageKey getArgumentKey(@NotNull StringLiteralExpression literal) {
+        if (!languageGetArgument().accepts(literal)) {
+            return null;
+        }
+
+        PsiElement[] parameters = ((ParameterList) literal.getParent()).getParameters();
+        if (parameters.length > 1 && parameters[1] == literal) {
+            return LanguageKey.category(literal.getContents());
+        }
+
+        if (parameters.length > 1 && parameters[0] == literal && parameters[1] instanceof StringLiteralExpression) {
+            return LanguageKey.item(((StringLiteralExpression) parameters[1]).getContents(), literal.getContents());
+        }
+
+        return null;
+    }
+
+    public static boolean isLanguageGet(@NotNull MethodReference method) {
+        if (!"get".equals(method.getName())) {
+            return false;
+        }
+
+        PsiElement classReference = method.getClassReference();
+        return classReference instanceof ClassReference && "Language".equals(((ClassReference) classReference).getName());
+    }
+}
@@ -0,0 +1,114 @@
+package eu.kloosterman.ideacelery.refactoring;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.InputValidator;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.refactoring.rename.RenameHandler;
+import com.jetbrains.php.lang.parser.PhpElementTypes;
+import com.jetbrains.php.lang.patterns.PhpPatterns;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Rename refactoring for a category or item key, invoked on its literal in english-utf-8.php
+ * or on a Language::get() argument using it.
+ */
+public class LanguageKeyRenameHandler implements RenameHandler {
+
+    @Override
+    public boolean isAvailableOnDataContext(@NotNull DataContext dataContext) {
+        return getLiteral(dataContext) != null;
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, PsiFile file, DataContext dataContext) {
+        StringLiteralExpression literal = getLiteral(dataContext);
+        if (literal == null) {
+            return;
+        }
+
+        if (DumbService.isDumb(project)) {
+            DumbService.getInstance(project).showDumbModeNotification(MyBundle.message("refactoring.rename.key.dumb"));
+            return;
+        }
+
+        // the key and the model are only resolved by the renamer, off the EDT
+        String oldName = literal.getContents();
+        String newName = Messages.showInputDialog(
+            project,
+            MyBundle.message("refactoring.rename.key.prompt", oldName),
+            MyBundle.message("refactoring.rename.key.title"),
+            null,
+            oldName,
+            new KeyNameValidator()
+        );
+
+        if (newName == null || newName.equals(oldName)) {
+            return;
+        }
+
+        LanguageKeyRenamer.rename(project, literal, newName);
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, PsiElement @NotNull [] elements, DataContext dataContext) {
+        invoke(project, null, null, dataContext);
+    }
+
+    /**
+     * String literal at the caret that looks like a key: a Language::get() argument or an array
+     * key in a language file. Only the PSI around the caret is checked, no language file is read.
+     */
+    @Nullable
+    private static StringLiteralExpression getLiteral(@NotNull DataContext dataContext) {
+        Editor editor = CommonDataKeys.EDITOR.getData(dataContext);
+        PsiFile file = CommonDataKeys.PSI_FILE.getData(dataContext);
+        if (editor == null || file == null) {
+            return null;
+        }
+
+        PsiElement element = file.findElementAt(editor.getCaretModel().getOffset());
+        StringLiteralExpression literal = PsiTreeUtil.getParentOfType(element, StringLiteralExpression.class, false);
+        if (literal == null || literal.getContents().isEmpty()) {
+            return null;
+        }
+
+        if (LanguagePatterns.languageGetArgument().accepts(literal)) {
+            return literal;
+        }
+
+        VirtualFile virtualFile = file.getVirtualFile();
+        boolean languageKey = virtualFile != null
+            && LanguageKeyIndex.isLanguagePartFile(virtualFile)
+            && PhpPatterns.psiElement(PhpElementTypes.ARRAY_KEY).accepts(literal.getParent());
+        return languageKey ? literal : null;
+    }
+
+    /**
+     * Keys are written into single and double quoted literals, so quotes, backslashes and
+     * variables are not allowed.
+     */
+    private static final class KeyNameValidator implements InputValidator {
+        @Override
+        public boolean checkInput(String inputString) {
+            return inputString != null && !inputString.isEmpty() && inputString.matches("[^'\"\\\\$]+");
+        }
+
+        @Override
+        public boolean canClose(String inputString) {
+            return checkInput(inputString);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package eu.kloosterman.ideacelery.refactoring;
+
+import com.github.kloostermanw.ideacelery.MyBundle;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.ReadonlyStatusHandler;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageUsageIndex;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
+import eu.kloosterman.ideacelery.search.LanguageKeyReferencesSearcher;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Renames a category or item key in every english and locale file of a language root and in
+ * all Language::get() calls using it. The key and its language root are resolved from the
+ * literal in a background read action; call sites come from {@link LanguageUsageIndex} and key
+ * literals from the indexed tables, so no PSI is built. The literals are checked against the
+ * document text and all edits are applied in one write command.
+ */
+public final class LanguageKeyRenamer {
+
+    private final Project project;
+    private final SmartPsiElementPointer<StringLiteralExpression> literal;
+    private final String oldName;
+    private final String newName;
+
+    LanguageKeyRenamer(@NotNull Project project, @NotNull StringLiteralExpression literal, @NotNull String newName) {
+        this.project = project;
+        this.literal = SmartPointerManager.createPointer(literal);
+        this.oldName = literal.getContents();
+        this.newName = newName;
+    }
+
+    /**
+     * Start the rename of the key declared or used by the literal to the new name.
+     */
+    public static void rename(@NotNull Project project, @NotNull StringLiteralExpression literal, @NotNull String newName) {
+        // the usage index reads committed PSI
+        PsiDocumentManager.getInstance(project).commitAllDocuments();
+        new LanguageKeyRenamer(project, literal, newName).queue();
+    }
+
+    private void queue() {
+        new Task.Backgroundable(project, MyBundle.message("refactoring.rename.key.progress", oldName), true) {
+            private Rename rename;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                rename = ReadAction.nonBlocking(() -> collectEdits(indicator))
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+            }
+
+            @Override
+            public void onSuccess() {
+                apply(rename);
+            }
+        }.queue();
+    }
+
+    /**
+     * Resolve the key and collect the literals to replace; must be called inside a read action.
+     */
+    @NotNull
+    Rename collectEdits(@NotNull ProgressIndicator indicator) {
+        StringLiteralExpression element = literal.getElement();
+        if (element == null) {
+            return Rename.error(MyBundle.message("refactoring.rename.key.changed"));
+        }
+
+        LanguageModelService service = LanguageModelService.getInstance(project);
+        LanguageModel model = service.getModel(element);
+        LanguageKey key = getKey(model, element);
+        if (key == null) {
+            return Rename.error(MyBundle.message("refactoring.rename.key.unknown", oldName));
+        }
+
+        boolean exists = key.isCategory() ? model.hasCategory(newName) : model.hasItem(key.getCategory(), newName);
+        if (exists) {
+            return Rename.error(MyBundle.message("refactoring.rename.key.exists", newName));
+        }
+
+        Map<VirtualFile, Set<Integer>> offsets = new LinkedHashMap<>();
+
+        List<LanguageTable> tables = new ArrayList<>(model.getTables());
+        tables.addAll(model.getLocaleTables());
+        for (LanguageTable table : tables) {
+            Integer offset = key.isCategory()
+                ? table.getCategoryOffset(key.getCategory())
+                : table.getItemOffset(key.getCategory(), oldName);
+            if (offset != null) {
+                offsets.computeIfAbsent(table.getFile(key.getCategory()), f -> new HashSet<>()).add(offset);
+            }
+        }
+
+        Map<VirtualFile, List<Integer>> usages = LanguageUsageIndex.getUsages(project, key, GlobalSearchScope.projectScope(project));
+        for (Map.Entry<VirtualFile, List<Integer>> usage : usages.entrySet()) {
+            ProgressManager.checkCanceled();
+
+            // calls of another application use a key that only shares its name
+            if (Collections.disjoint(service.getModel(usage.getKey()).getTables(), model.getTables())) {
+                continue;
+            }
+            offsets.computeIfAbsent(usage.getKey(), f -> new HashSet<>()).addAll(usage.getValue());
+        }
+
+        List<DocumentEdits> edits = new ArrayList<>();
+        int done = 0;
+        indicator.setIndeterminate(false);
+        for (Map.Entry<VirtualFile, Set<Integer>> file : offsets.entrySet()) {
+            ProgressManager.checkCanceled();
+            indicator.setFraction((double) done++ / offsets.size());
+
+            Document document = FileDocumentManager.getInstance().getDocument(file.getKey());
+            if (document == null) {
+                continue;
+            }
+
+            List<Integer> literals = new ArrayList<>();
+            for (Integer offset : file.getValue()) {
+                if (isKeyLiteral(document.getCharsSequence(), offset)) {
+                    literals.add(offset);
+                }
+            }
+
+            if (!literals.isEmpty()) {
+                // back to front, so earlier offsets stay valid
+                literals.sort(Comparator.reverseOrder());
+                edits.add(new DocumentEdits(file.getKey(), document, document.getModificationStamp(), literals));
+            }
+        }
+
+        return new Rename(key, edits, null);
+    }
+
+    /**
+     * Key declared by an english key literal, or an existing key of the model used by a
+     * Language::get() argument.
+     */
+    @Nullable
+    private static LanguageKey getKey(@NotNull LanguageModel model, @NotNull StringLiteralExpression literal) {
+        LanguageKey key = LanguageKeyReferencesSearcher.getLanguageKey(literal);
+        if (key != null) {
+            return key;
+        }
+
+        key = LanguagePatterns.getArgumentKey(literal);
+        if (key == null) {
+            return null;
+        }
+
+        String item = key.getItem();
+        boolean exists = item == null ? model.hasCategory(key.getCategory()) : model.hasItem(key.getCategory(), item);
+        return exists ? key : null;
+    }
+
+    /**
+     * Report the error of the collected rename, or apply its edits unless a document changed
+     * since they were collected; must be called on the EDT.
+     */
+    void apply(@NotNull Rename rename) {
+        if (rename.error != null) {
+            Messages.showErrorDialog(project, rename.error, MyBundle.message("refactoring.rename.key.title"));
+        } else {
+            applyEdits(Objects.requireNonNull(rename.key), rename.edits);
+        }
+    }
+
+    private void applyEdits(@NotNull LanguageKey key, @NotNull List<DocumentEdits> edits) {
+        if (edits.isEmpty()) {
+            return;
+        }
+
+        for (DocumentEdits edit : edits) {
+            if (edit.document.getModificationStamp() != edit.modificationStamp) {
+                Messages.showErrorDialog(project, MyBundle.message("refactoring.rename.key.changed"), MyBundle.message("refactoring.rename.key.title"));
+                return;
+            }
+        }
+
+        List<VirtualFile> files = new ArrayList<>();
+        for (DocumentEdits edit : edits) {
+            files.add(edit.file);
+        }
+        if (ReadonlyStatusHandler.getInstance(project).ensureFilesWritable(files).hasReadonlyFiles()) {
+            return;
+        }
+
+        WriteCommandAction.writeCommandAction(project)
+            .withName(MyBundle.message("refactoring.rename.key.command", key.toString(), newName))
+            .withGlobalUndo()
+            .run(() -> {
+                for (DocumentEdits edit : edits) {
+                    for (int offset : edit.offsets) {
+                        edit.document.replaceString(offset + 1, offset + 1 + oldName.length(), newName);
+                    }
+                }
+            });
+    }
+
+    /**
+     * Whether a quoted literal holding the old name starts at the offset; index data can be
+     * outdated for files changed since they were indexed.
+     */
+    private boolean isKeyLiteral(@NotNull CharSequence text, int offset) {
+        int end = offset + oldName.length() + 1;
+        if (offset < 0 || end >= text.length()) {
+            return false;
+        }
+
+        char quote = text.charAt(offset);
+        return (quote == '\'' || quote == '"') && text.charAt(end) == quote && oldName.contentEquals(text.subSequence(offset + 1, end));
+    }
+
+    static final class Rename {
+        private final LanguageKey key;
+        private final List<DocumentEdits> edits;
+        private final String error;
+
+        private Rename(@Nullable LanguageKey key, @NotNull List<DocumentEdits> edits, @Nullable String error) {
+            this.key = key;
+            this.edits = edits;
+            this.error = error;
+        }
+
+        @NotNull
+        private static Rename error(@NotNull String error) {
+            return new Rename(null, Collections.emptyList(), error);
+        }
+    }
+
+    private static final class DocumentEdits {
+        private final VirtualFile file;
+        private final Document document;
+        private final long modificationStamp;
+        private final List<Integer> offsets;
+
+        private DocumentEdits(@NotNull VirtualFile file, @NotNull Document document, long modificationStamp, @NotNull List<Integer> offsets) {
+            this.file = file;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.offsets = offsets;
+        }
+    }
+}
@@ -2,11 +2,14 @@ package eu.kloosterman.ideacelery.reference;
 
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
-import com.intellij.psi.search.FilenameIndex;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.PsiTreeUtil;
-import com.jetbrains.php.lang.psi.elements.*;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -34,118 +37,56 @@ public class LanguageReference extends PsiReferenceBase<StringLiteralExpression>
         }
 
         Project project = myElement.getProject();
-        PsiFile[] files = FilenameIndex.getFilesByName(
-            project,
-            "english-utf-8.php",
-            GlobalSearchScope.allScope(project)
-        );
-
-        for (PsiFile file : files) {
-            PsiDirectory directory = file.getContainingDirectory();
-            if (directory == null || !directory.getName().equals("languages")) {
-                continue;
-            }
-
-            // Parse the language file structure: $lang = [ ... ]
-            ArrayHashElement[] topLevelElements = getArrayHashElements(file);
-            if (topLevelElements == null) {
-                continue;
-            }
-
-            if (parameterIndex == 1) {
-                // Resolving category (second parameter)
-                PsiElement categoryElement = findCategoryKey(topLevelElements, value);
-                if (categoryElement != null) {
-                    return categoryElement;
-                }
-            } else if (parameterIndex == 0 && category != null) {
-                // Resolving item (first parameter) within a category
-                PsiElement itemElement = findItemKey(topLevelElements, category, value);
-                if (itemElement != null) {
-                    return itemElement;
-                }
-            }
+        long start = System.nanoTime();
+        try {
+            return resolve(project, LanguageModelService.getInstance(project).getModel(myElement), parameterIndex, category, value);
+        } finally {
+            LanguageMetrics.getInstance().record(LanguageMetrics.Timer.RESOLVE, start);
         }
-
-        return null;
     }
 
     /**
-     * Find the key element for a category in the top-level array.
+     * Resolve a category (parameter index 1) or an item of a category (parameter index 0)
+     * against the given model.
      */
     @Nullable
-    private PsiElement findCategoryKey(ArrayHashElement[] elements, String categoryName) {
-        for (ArrayHashElement element : elements) {
-            PhpPsiElement key = element.getKey();
-            if (key instanceof StringLiteralExpression) {
-                String content = ((StringLiteralExpression) key).getContents();
-                if (categoryName.equals(content)) {
-                    return key; // Return the key itself for navigation
-                }
+    public static PsiElement resolve(@NotNull Project project, @NotNull LanguageModel model, int parameterIndex, @Nullable String category, @NotNull String value) {
+        for (LanguageTable table : model.getTables()) {
+            Integer offset = null;
+            String keyCategory = null;
+            if (parameterIndex == 1) {
+                // Resolving category (second parameter)
+                offset = table.getCategoryOffset(value);
+                keyCategory = value;
+            } else if (parameterIndex == 0 && category != null) {
+                // Resolving item (first parameter) within a category
+                offset = table.getItemOffset(category, value);
+                keyCategory = category;
             }
-        }
-        return null;
-    }
 
-    /**
-     * Find the key element for an item within a specific category.
-     */
-    @Nullable
-    private PsiElement findItemKey(ArrayHashElement[] elements, String categoryName, String itemName) {
-        for (ArrayHashElement element : elements) {
-            PhpPsiElement key = element.getKey();
-            if (key instanceof StringLiteralExpression) {
-                String content = ((StringLiteralExpression) key).getContents();
-                if (categoryName.equals(content)) {
-                    // Found the category, now search for the item
-                    PhpPsiElement value = element.getValue();
-                    if (value instanceof ArrayCreationExpression) {
-                        PsiElement[] children = value.getChildren();
-                        for (PsiElement child : children) {
-                            if (child instanceof ArrayHashElement) {
-                                PsiElement itemKey = ((ArrayHashElement) child).getKey();
-                                if (itemKey instanceof StringLiteralExpression) {
-                                    String itemContent = ((StringLiteralExpression) itemKey).getContents();
-                                    if (itemName.equals(itemContent)) {
-                                        return itemKey; // Return the item key for navigation
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    break;
+            if (offset != null) {
+                PsiElement keyElement = findKeyElement(project, table.getFile(keyCategory), offset, value);
+                if (keyElement != null) {
+                    return keyElement;
                 }
             }
         }
+
         return null;
     }
 
     /**
-     * Extract the top-level array hash elements from the language file.
-     * Expects structure: $lang = [ 'category' => [...], ... ];
+     * Load the language file only now that we navigate, and return the key literal at the indexed offset.
+     * The literal must still hold the key, as offsets served from a snapshot in dumb mode can be outdated.
      */
     @Nullable
-    private ArrayHashElement[] getArrayHashElements(PsiFile psiFile) {
-        GroupStatement groupStatement = PsiTreeUtil.getChildOfType(psiFile, GroupStatement.class);
-        if (groupStatement == null) {
-            return null;
-        }
-
-        Statement statement = PsiTreeUtil.getChildOfType(groupStatement, Statement.class);
-        if (statement == null) {
-            return null;
-        }
-
-        AssignmentExpression assignmentExpression = PsiTreeUtil.getChildOfType(statement, AssignmentExpression.class);
-        if (assignmentExpression == null) {
-            return null;
-        }
-
-        ArrayCreationExpression arrayCreationExpression = PsiTreeUtil.getChildOfType(assignmentExpression, ArrayCreationExpression.class);
-        if (arrayCreationExpression == null) {
+    private static PsiElement findKeyElement(@NotNull Project project, @NotNull VirtualFile file, int offset, @NotNull String key) {
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null) {
             return null;
         }
 
-        return PsiTreeUtil.getChildrenOfType(arrayCreationExpression, ArrayHashElement.class);
+        StringLiteralExpression literal = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), StringLiteralExpression.class, false);
+        return literal != null && key.equals(literal.getContents()) ? literal : null;
     }
 }
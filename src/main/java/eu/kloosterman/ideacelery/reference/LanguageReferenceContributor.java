@@ -1,12 +1,10 @@
 package eu.kloosterman.ideacelery.reference;
 
-import com.intellij.patterns.PlatformPatterns;
 import com.intellij.psi.*;
 import com.intellij.util.ProcessingContext;
-import com.jetbrains.php.lang.psi.elements.MethodReference;
 import com.jetbrains.php.lang.psi.elements.ParameterList;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import com.jetbrains.php.lang.psi.elements.ClassReference;
+import eu.kloosterman.ideacelery.pattern.LanguagePatterns;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -18,7 +16,7 @@ public class LanguageReferenceContributor extends PsiReferenceContributor {
     @Override
     public void registerReferenceProviders(@NotNull PsiReferenceRegistrar registrar) {
         registrar.registerReferenceProvider(
-            PlatformPatterns.psiElement(StringLiteralExpression.class),
+            LanguagePatterns.languageGetArgument(),
             new PsiReferenceProvider() {
                 @NotNull
                 @Override
@@ -28,36 +26,7 @@ public class LanguageReferenceContributor extends PsiReferenceContributor {
                     }
 
                     StringLiteralExpression literal = (StringLiteralExpression) element;
-
-                    // Check if we're in a Language::get() call
-                    PsiElement parent = literal.getParent();
-                    if (!(parent instanceof ParameterList)) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
-
-                    ParameterList parameterList = (ParameterList) parent;
-                    PsiElement methodCall = parameterList.getParent();
-
-                    if (!(methodCall instanceof MethodReference)) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
-
-                    MethodReference method = (MethodReference) methodCall;
-
-                    // Check if it's Language::get()
-                    if (!"get".equals(method.getName())) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
-
-                    PsiElement classRef = method.getClassReference();
-                    if (!(classRef instanceof ClassReference)) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
-
-                    ClassReference cls = (ClassReference) classRef;
-                    if (!"Language".equals(cls.getName())) {
-                        return PsiReference.EMPTY_ARRAY;
-                    }
+                    ParameterList parameterList = (ParameterList) literal.getParent();
 
                     // Determine parameter position
                     PsiElement[] parameters = parameterList.getParameters();
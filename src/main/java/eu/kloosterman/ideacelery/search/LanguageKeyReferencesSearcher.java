@@ -0,0 +1,84 @@
+package eu.kloosterman.ideacelery.search;
+
+import com.intellij.openapi.application.QueryExecutorBase;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.index.LanguageUsageIndex;
+import eu.kloosterman.ideacelery.language.LanguageKey;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.reference.LanguageReference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the Language::get() references of a category or item key in english-utf-8.php
+ * through {@link LanguageUsageIndex}, so only files that actually use the key are loaded.
+ */
+public class LanguageKeyReferencesSearcher extends QueryExecutorBase<PsiReference, ReferencesSearch.SearchParameters> {
+
+    public LanguageKeyReferencesSearcher() {
+        super(true);
+    }
+
+    @Override
+    public void processQuery(@NotNull ReferencesSearch.SearchParameters queryParameters, @NotNull Processor<? super PsiReference> consumer) {
+        PsiElement target = queryParameters.getElementToSearch();
+        SearchScope scope = queryParameters.getEffectiveSearchScope();
+        if (!(target instanceof StringLiteralExpression) || !(scope instanceof GlobalSearchScope)) {
+            return;
+        }
+
+        LanguageKey key = getLanguageKey(target);
+        if (key == null) {
+            return;
+        }
+
+        PsiManager psiManager = target.getManager();
+        Map<VirtualFile, List<Integer>> usages = LanguageUsageIndex.getUsages(target.getProject(), key, (GlobalSearchScope) scope);
+
+        for (Map.Entry<VirtualFile, List<Integer>> usage : usages.entrySet()) {
+            PsiFile psiFile = psiManager.findFile(usage.getKey());
+            if (psiFile == null) {
+                continue;
+            }
+
+            for (Integer offset : usage.getValue()) {
+                StringLiteralExpression literal = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), StringLiteralExpression.class, false);
+                if (literal == null) {
+                    continue;
+                }
+
+                for (PsiReference reference : literal.getReferences()) {
+                    if (reference instanceof LanguageReference && reference.isReferenceTo(target) && !consumer.process(reference)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Category or item key declared by a key literal of an english language file or a file it includes.
+     */
+    @Nullable
+    public static LanguageKey getLanguageKey(@NotNull PsiElement element) {
+        VirtualFile file = element.getContainingFile().getVirtualFile();
+        if (file == null || !LanguageKeyIndex.isLanguagePartFile(file)) {
+            return null;
+        }
+
+        LanguageTable table = LanguageModelService.getInstance(element.getProject()).getModel().findLanguageTable(file);
+        return table != null ? table.getKeyAt(file, element.getTextOffset()) : null;
+    }
+}
@@ -1,12 +0,0 @@
-package com.github.kloostermanw.ideacelery.listeners
-
-import com.github.kloostermanw.ideacelery.services.MyProjectService
-import com.intellij.openapi.components.service
-import com.intellij.openapi.project.Project
-import com.intellij.openapi.project.ProjectManagerListener
-
-internal class MyProjectManagerListener : ProjectManagerListener {
-    override fun projectOpened(project: Project) {
-        project.service<MyProjectService>()
-    }
-}
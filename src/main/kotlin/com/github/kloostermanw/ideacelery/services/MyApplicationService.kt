@@ -1,9 +0,0 @@
-package com.github.kloostermanw.ideacelery.services
-
-import com.github.kloostermanw.ideacelery.MyBundle
-
-class MyApplicationService {
-    init {
-        println(MyBundle.message("applicationService"))
-    }
-}
@@ -0,0 +1,23 @@
+package com.github.kloostermanw.ideacelery.startup
+
+import com.github.kloostermanw.ideacelery.MyBundle
+import com.intellij.openapi.application.smartReadAction
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.startup.ProjectActivity
+import com.intellij.platform.ide.progress.withBackgroundProgress
+import eu.kloosterman.ideacelery.language.LanguageModelService
+
+/**
+ * Builds the language model once indexing has finished, so the first Language::get()
+ * completion after opening a project does not pay for it. The read action is non-blocking
+ * and restarts on write actions; closing the project cancels it.
+ */
+internal class LanguageModelWarmUpActivity : ProjectActivity {
+    override suspend fun execute(project: Project) {
+        withBackgroundProgress(project, MyBundle.message("startup.warmup.progress")) {
+            smartReadAction(project) {
+                LanguageModelService.getInstance(project).model
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package eu.kloosterman.ideacelery.batch;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * The JSON report of a project with an english and a dutch language file and one calling file.
+ */
+public class LanguageAnalysisTest extends BasePlatformTestCase {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("languages/english-utf-8.php",
+            "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n        'unused' => 'Unused',\n    ],\n];\n");
+        myFixture.addFileToProject("languages/dutch-utf-8.php",
+            "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Opslaan',\n        'unused' => 'Ongebruikt',\n    ],\n];\n");
+        myFixture.addFileToProject("caller.php",
+            "<?php\n\nLanguage::get('save', 'forms');\nLanguage::get('cancel', 'forms');\nLanguage::get('delete', 'forms');\nLanguage::get('item', 'unknown');\n");
+    }
+
+    public void testReport() throws Exception {
+        JsonObject report = JsonParser.parseString(runAnalysis().toJson()).getAsJsonObject();
+
+        JsonObject summary = report.getAsJsonObject("summary");
+        assertEquals(2, summary.get(LanguageReport.UNKNOWN_KEY).getAsInt());
+        assertEquals(1, summary.get(LanguageReport.MISSING_TRANSLATION).getAsInt());
+        assertEquals(1, summary.get(LanguageReport.UNUSED_KEY).getAsInt());
+
+        Map<String, JsonObject> problems = new HashMap<>();
+        for (JsonElement element : report.getAsJsonArray("problems")) {
+            JsonObject problem = element.getAsJsonObject();
+            problems.put(problem.get("type").getAsString() + " " + problem.get("key").getAsString(), problem);
+        }
+        assertSameElements(problems.keySet(),
+            "unknown-key forms.delete", "unknown-key unknown", "missing-translation forms.cancel", "unused-key forms.unused");
+
+        assertProblem(problems.get("unknown-key forms.delete"), "caller.php", 5);
+        assertProblem(problems.get("unknown-key unknown"), "caller.php", 6);
+        assertProblem(problems.get("unused-key forms.unused"), "english-utf-8.php", 7);
+
+        JsonObject missing = problems.get("missing-translation forms.cancel");
+        assertProblem(missing, "caller.php", 4);
+        JsonArray locales = missing.getAsJsonArray("locales");
+        assertEquals(1, locales.size());
+        assertEquals("dutch", locales.get(0).getAsString());
+    }
+
+    private static void assertProblem(@NotNull JsonObject problem, @NotNull String file, int line) {
+        assertTrue(problem.toString(), problem.get("file").getAsString().endsWith(file));
+        assertEquals(problem.toString(), line, problem.get("line").getAsInt());
+    }
+
+    /**
+     * Runs the analysis on a pooled thread, as the headless command does; it waits for smart
+     * mode, which must not happen on the EDT.
+     */
+    @NotNull
+    private LanguageReport runAnalysis() throws Exception {
+        ProgressIndicator indicator = new EmptyProgressIndicator();
+        Future<LanguageReport> report = ApplicationManager.getApplication().executeOnPooledThread(() ->
+            ProgressManager.getInstance().runProcess(() -> new LanguageAnalysis(getProject()).run(indicator), indicator)
+        );
+        return PlatformTestUtil.waitForFuture(report, TIMEOUT_MILLIS);
+    }
+}
@@ -0,0 +1,107 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.tools.ide.metrics.benchmark.Benchmark;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Timing and heap measurement for the benchmark tests.
+ */
+public final class Benchmarks {
+
+    private static final int WARMUP_RUNS = 3;
+
+    // results are kept here so the JIT cannot drop the measured work
+    @SuppressWarnings("unused")
+    private static volatile Object sink;
+
+    private Benchmarks() {
+    }
+
+    @NotNull
+    public static Measurement measure(@NotNull String name, int iterations, @NotNull Supplier<?> operation) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink = operation.get();
+        }
+
+        sink = null;
+        System.gc();
+        long baseline = resetPeakHeapUsage();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ProgressManager.checkCanceled();
+            sink = operation.get();
+        }
+        long averageNanos = (System.nanoTime() - start) / iterations;
+
+        return new Measurement(name, averageNanos, Math.max(0, getPeakHeapUsage() - baseline));
+    }
+
+    /**
+     * Median run time of the operation, run through the platform benchmark harness.
+     */
+    public static double measureMedianMillis(@NotNull String name, int iterations, @NotNull Supplier<?> operation) {
+        List<Long> samples = new ArrayList<>();
+        Benchmark.newBenchmark(name, () -> {
+            long start = System.nanoTime();
+            sink = operation.get();
+            samples.add(System.nanoTime() - start);
+        }).warmupIterations(WARMUP_RUNS).attempts(iterations).start();
+
+        // warmup runs are recorded first
+        List<Long> measured = new ArrayList<>(samples.subList(Math.max(0, samples.size() - iterations), samples.size()));
+        Collections.sort(measured);
+        return measured.get(measured.size() / 2) / 1_000_000d;
+    }
+
+    /**
+     * Heap still reachable from the result of the operation after a full collection.
+     */
+    public static long measureRetainedHeap(@NotNull Supplier<?> operation) {
+        sink = null;
+        System.gc();
+        long before = getUsedHeap();
+
+        Object result = operation.get();
+        System.gc();
+        long after = getUsedHeap();
+
+        sink = result;
+        return Math.max(0, after - before);
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long resetPeakHeapUsage() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
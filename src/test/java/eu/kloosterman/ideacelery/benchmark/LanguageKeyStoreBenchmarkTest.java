@@ -0,0 +1,115 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import com.intellij.codeInsight.completion.impl.CamelHumpMatcher;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.containers.Interner;
+import eu.kloosterman.ideacelery.completion.ToolboxCompletionContributor;
+import eu.kloosterman.ideacelery.language.LanguageKeyStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lookup time and retained size of {@link LanguageKeyStore} at 100k keys, next to the
+ * insertion ordered hash set it replaced. Run times are medians from the platform benchmark
+ * harness, compared against a smaller store or the hash set rather than fixed budgets.
+ * Excluded from the regular test run, run with {@code ./gradlew test -PperformanceTests}.
+ */
+public class LanguageKeyStoreBenchmarkTest extends BasePlatformTestCase {
+
+    private static final int KEYS = 100_000;
+    private static final int SMALL_KEYS = 1_000;
+    private static final int ITERATIONS = 20;
+    // lookups per measured run, single lookups are too short to time
+    private static final int LOOKUPS = 1_000;
+    private static final int LIMIT = 500;
+    private static final String PREFIX = "item_9999";
+    private static final String TYPO = "item_99989";
+
+    // a hundred times the keys adds fewer than seven steps to a binary search
+    private static final double LOGARITHMIC_GROWTH = 4;
+    private static final double LINEAR_SLACK = 2;
+    private static final double NOISE_MILLIS = 0.01;
+
+    private List<String> keys;
+    private LanguageKeyStore store;
+    private LanguageKeyStore smallStore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(SyntheticLanguageFile.itemName(i));
+        }
+        store = LanguageKeyStore.create(keys, Interner.createStringInterner());
+        smallStore = LanguageKeyStore.create(keys.subList(0, SMALL_KEYS), Interner.createStringInterner());
+    }
+
+    public void testContains() {
+        String missing = SyntheticLanguageFile.itemName(KEYS);
+        assertGrowth("store contains", LOGARITHMIC_GROWTH, candidate -> () -> {
+            int found = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                found += candidate.contains(missing) ? 1 : 0;
+            }
+            return found;
+        });
+    }
+
+    public void testPrefixRange() {
+        assertGrowth("store prefix range", LOGARITHMIC_GROWTH, candidate -> () -> {
+            int size = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                size += candidate.getKeysWithPrefix(PREFIX).size();
+            }
+            return size;
+        });
+        assertEquals(11, store.getKeysWithPrefix(PREFIX).size());
+    }
+
+    public void testFuzzyMatch() {
+        // every key is compared, the time may grow with the key count but not faster
+        assertGrowth("store fuzzy match", (double) KEYS / SMALL_KEYS * LINEAR_SLACK, candidate -> () -> candidate.getSimilarKeys(TYPO, 3));
+        assertContainsElements(store.getSimilarKeys(TYPO, 3), "item_99998");
+    }
+
+    public void testCompletionNotSlowerThanHashSet() {
+        Set<String> set = new LinkedHashSet<>(keys);
+
+        double storeCompletion = Benchmarks.measureMedianMillis("store completion", ITERATIONS, () ->
+            ToolboxCompletionContributor.addMatchingKeys(store.getKeysPrefixFirst(PREFIX), new CamelHumpMatcher(PREFIX), LIMIT, key -> null, element -> {})
+        );
+        double setCompletion = Benchmarks.measureMedianMillis("set completion", ITERATIONS, () ->
+            ToolboxCompletionContributor.addMatchingKeys(set, new CamelHumpMatcher(PREFIX), LIMIT, key -> null, element -> {})
+        );
+
+        // both visit every key, allow for noise
+        assertTrue(String.format("store %.3f ms vs set %.3f ms", storeCompletion, setCompletion), storeCompletion <= setCompletion * 1.5);
+    }
+
+    public void testRetainsLessThanHashSet() {
+        // the key strings themselves are shared, only the lookup structures are compared
+        long storeBytes = Benchmarks.measureRetainedHeap(() -> LanguageKeyStore.create(keys, Interner.createStringInterner()));
+        long setBytes = Benchmarks.measureRetainedHeap(() -> new LinkedHashSet<>(keys));
+
+        assertTrue("store " + storeBytes / KEYS + " bytes/key, set " + setBytes / KEYS + " bytes/key", storeBytes < setBytes);
+    }
+
+    /**
+     * Assert that the median run time on the full store stays within the given factor of the
+     * run time on a store with a hundredth of the keys.
+     */
+    private void assertGrowth(@NotNull String name, double factor, @NotNull Function<LanguageKeyStore, Supplier<?>> operation) {
+        double small = Benchmarks.measureMedianMillis(name + ", " + SMALL_KEYS + " keys", ITERATIONS, operation.apply(smallStore));
+        double large = Benchmarks.measureMedianMillis(name + ", " + KEYS + " keys", ITERATIONS, operation.apply(store));
+        assertTrue(String.format("%s: %.4f ms at %d keys, %.4f ms at %d keys", name, small, SMALL_KEYS, large, KEYS),
+            large <= small * factor + NOISE_MILLIS);
+    }
+}
@@ -0,0 +1,100 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.*;
+import eu.kloosterman.ideacelery.index.LanguageCategory;
+import eu.kloosterman.ideacelery.index.LanguageFileParser;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Compares {@link LanguageFileParser} with the PSI walk it replaced on synthetic language files:
+ * both must find the same keys at the same offsets, and the lexer must be faster at every size.
+ * Peak heap use is only reported, as it is sampled across the whole JVM.
+ */
+public class LanguageParserBenchmarkTest extends BasePlatformTestCase {
+
+    private static final int[] KEY_COUNTS = {1_000, 10_000, 100_000};
+    private static final int CATEGORIES = 100;
+    private static final int ITERATIONS = 5;
+
+    public void testLexerFindsSameKeysAsPsi() {
+        String text = SyntheticLanguageFile.generate(KEY_COUNTS[0], CATEGORIES);
+
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, LanguageCategory> category : LanguageFileParser.parse(getProject(), text).entrySet()) {
+            keys.add(describeKey(category.getKey(), null, category.getValue().getOffset()));
+            for (Map.Entry<String, Integer> item : category.getValue().getItems().entrySet()) {
+                keys.add(describeKey(category.getKey(), item.getKey(), item.getValue()));
+            }
+        }
+
+        List<String> psiKeys = walkPsi(getProject(), text);
+        assertEquals(KEY_COUNTS[0] + CATEGORIES, psiKeys.size());
+        assertEquals(new HashSet<>(psiKeys), keys);
+    }
+
+    public void testLexerFasterThanPsi() {
+        for (int keys : KEY_COUNTS) {
+            String text = SyntheticLanguageFile.generate(keys, CATEGORIES);
+
+            Measurement lexer = Benchmarks.measure("lexer " + keys + " keys", ITERATIONS, () -> LanguageFileParser.parse(getProject(), text));
+            Measurement psi = Benchmarks.measure("psi " + keys + " keys", ITERATIONS, () -> walkPsi(getProject(), text));
+
+            System.out.println(lexer + " vs " + psi);
+            assertTrue(lexer + " vs " + psi, lexer.getAverageNanos() < psi.getAverageNanos());
+        }
+    }
+
+    /**
+     * The former PSI based extraction: build the file, then walk $lang = [ 'category' => [ 'item' => ... ] ]
+     * and describe every category and item key with the text offset of its literal.
+     */
+    @NotNull
+    private static List<String> walkPsi(@NotNull Project project, @NotNull String text) {
+        PsiFile psiFile = PsiFileFactory.getInstance(project).createFileFromText(LanguageKeyIndex.ENGLISH_FILE_NAME, PhpFileType.INSTANCE, text);
+
+        GroupStatement groupStatement = PsiTreeUtil.getChildOfType(psiFile, GroupStatement.class);
+        Statement statement = PsiTreeUtil.getChildOfType(groupStatement, Statement.class);
+        AssignmentExpression assignmentExpression = PsiTreeUtil.getChildOfType(statement, AssignmentExpression.class);
+        ArrayCreationExpression arrayCreationExpression = PsiTreeUtil.getChildOfType(assignmentExpression, ArrayCreationExpression.class);
+        ArrayHashElement[] categories = PsiTreeUtil.getChildrenOfType(arrayCreationExpression, ArrayHashElement.class);
+
+        List<String> keys = new ArrayList<>();
+        if (categories == null) {
+            return keys;
+        }
+
+        for (ArrayHashElement category : categories) {
+            PhpPsiElement value = category.getValue();
+            if (!(category.getKey() instanceof StringLiteralExpression) || !(value instanceof ArrayCreationExpression)) {
+                continue;
+            }
+
+            StringLiteralExpression categoryKey = (StringLiteralExpression) category.getKey();
+            keys.add(describeKey(categoryKey.getContents(), null, categoryKey.getTextOffset()));
+            for (PsiElement child : value.getChildren()) {
+                if (child instanceof ArrayHashElement && ((ArrayHashElement) child).getKey() instanceof StringLiteralExpression) {
+                    StringLiteralExpression itemKey = (StringLiteralExpression) ((ArrayHashElement) child).getKey();
+                    keys.add(describeKey(categoryKey.getContents(), itemKey.getContents(), itemKey.getTextOffset()));
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    @NotNull
+    private static String describeKey(@NotNull String category, @Nullable String item, int offset) {
+        return (item == null ? category : category + "." + item) + "@" + offset;
+    }
+}
@@ -0,0 +1,193 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import com.intellij.codeInsight.completion.impl.CamelHumpMatcher;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightVirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.PhpFileType;
+import eu.kloosterman.ideacelery.completion.ToolboxCompletionContributor;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.index.LanguageFileParser;
+import eu.kloosterman.ideacelery.index.LanguageKeyIndex;
+import eu.kloosterman.ideacelery.language.LanguageModel;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+import eu.kloosterman.ideacelery.language.LanguageTable;
+import eu.kloosterman.ideacelery.reference.LanguageReference;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Completion latency, resolve latency, model patch time after a single key edit and retained
+ * model size on synthetic language files. Run times are medians from the platform benchmark
+ * harness and are only compared with each other: lookups must not slow down as the key count
+ * grows a hundredfold, and updates must stay cheaper than building the model again. Excluded
+ * from the regular test run, run with {@code ./gradlew test -PperformanceTests}.
+ */
+public class LanguagePerformanceTest extends BasePlatformTestCase {
+
+    // {keys, categories}
+    private static final int[][] SCENARIOS = {{1_000, 10}, {10_000, 100}, {100_000, 100}, {100_000, 1_000}};
+    // a hundred times the keys, with the same number of items per category
+    private static final int[] SMALL = {1_000, 10};
+    private static final int[] LARGE = {100_000, 1_000};
+    // ten times the keys, with the same number of categories
+    private static final int[] FEW_ITEMS = {10_000, 100};
+    private static final int[] MANY_ITEMS = {100_000, 100};
+    private static final int ITERATIONS = 20;
+
+    // allowed slowdown of a lookup whose cost should not depend on the key count
+    private static final double CONSTANT_GROWTH = 4;
+    // below this difference two medians are treated as equal, timer resolution and noise
+    private static final double NOISE_MILLIS = 0.01;
+    private static final double UPDATE_REBUILD_FACTOR = 3;
+    private static final int UPDATE_KEYS = 100_000;
+    private static final int UPDATE_EDITS = 5;
+    private static final long BYTES_PER_KEY_BUDGET = 512;
+
+    public void testItemCompletion() {
+        int limit = Registry.intValue(ToolboxCompletionContributor.COMPLETION_LIMIT_REGISTRY_KEY);
+        assertConstantTime("item completion", SMALL, LARGE, scenario -> {
+            LanguageModel model = createModel(SyntheticLanguageFile.generate(scenario[0], scenario[1]));
+            String category = SyntheticLanguageFile.categoryName(scenario[1] / 2);
+            return () -> ToolboxCompletionContributor.addMatchingKeys(model.getItems(category), new CamelHumpMatcher(""), limit, key -> null, element -> {});
+        });
+    }
+
+    public void testPrefixedItemCompletion() {
+        int limit = Registry.intValue(ToolboxCompletionContributor.COMPLETION_LIMIT_REGISTRY_KEY);
+        assertConstantTime("prefixed item completion", SMALL, LARGE, scenario -> {
+            LanguageModel model = createModel(SyntheticLanguageFile.generate(scenario[0], scenario[1]));
+            String category = SyntheticLanguageFile.categoryName(scenario[1] / 2);
+            return () -> ToolboxCompletionContributor.addMatchingKeys(model.getItemStore(category).getKeysPrefixFirst("item_1"), new CamelHumpMatcher("item_1"), limit, key -> null, element -> {});
+        });
+    }
+
+    public void testCategoryCompletion() {
+        int limit = Registry.intValue(ToolboxCompletionContributor.COMPLETION_LIMIT_REGISTRY_KEY);
+        assertConstantTime("category completion", FEW_ITEMS, MANY_ITEMS, scenario -> {
+            LanguageModel model = createModel(SyntheticLanguageFile.generate(scenario[0], scenario[1]));
+            return () -> ToolboxCompletionContributor.addMatchingKeys(model.getCategories(), new CamelHumpMatcher(""), limit, key -> null, element -> {});
+        });
+    }
+
+    public void testResolve() {
+        assertConstantTime("resolve", SMALL, LARGE, scenario -> {
+            LanguageModel model = createModel(SyntheticLanguageFile.generate(scenario[0], scenario[1]));
+            String category = SyntheticLanguageFile.categoryName(scenario[1] / 2);
+            String item = SyntheticLanguageFile.itemName(scenario[0] / scenario[1] - 1);
+            return () -> LanguageReference.resolve(getProject(), model, 0, category, item);
+        });
+    }
+
+    public void testModelPatchAfterOneKeyEdit() {
+        for (int[] scenario : SCENARIOS) {
+            String text = SyntheticLanguageFile.generate(scenario[0], scenario[1]);
+            LanguageModel model = createModel(text);
+
+            // the index parses the edited file, the model only has to patch the edited category
+            LightVirtualFile file = (LightVirtualFile) model.getTables().get(0).getFile();
+            LanguageTable editedTable = new LanguageTable(file, LanguageFileParser.parse(getProject(), renameFirstItem(text)));
+
+            double patch = Benchmarks.measureMedianMillis("model patch after one key edit, " + describe(scenario), ITERATIONS, () ->
+                new LanguageModel(Collections.singletonList(editedTable), Collections.emptyList(), model)
+            );
+            double rebuild = Benchmarks.measureMedianMillis("model rebuild, " + describe(scenario), ITERATIONS, () ->
+                new LanguageModel(Collections.singletonList(editedTable), Collections.emptyList())
+            );
+            assertTrue(String.format("model patch after one key edit, %s: %.3f ms, rebuild %.3f ms", describe(scenario), patch, rebuild),
+                patch < rebuild);
+        }
+    }
+
+    public void testModelUpdateAfterDocumentEdit() {
+        String text = SyntheticLanguageFile.generate(UPDATE_KEYS, 100);
+        PsiFile file = myFixture.addFileToProject(LanguageKeyIndex.LANGUAGES_DIRECTORY + "/" + LanguageKeyIndex.ENGLISH_FILE_NAME, text);
+        Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+        assertNotNull(document);
+
+        LanguageModelService service = LanguageModelService.getInstance(getProject());
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        String category = SyntheticLanguageFile.categoryName(0);
+        ReadAction.run(service::getModel);
+
+        String item = SyntheticLanguageFile.itemName(0);
+        List<Long> samples = new ArrayList<>();
+        for (int edit = 0; edit < UPDATE_EDITS; edit++) {
+            String oldItem = item;
+            String newItem = "renamed_item_" + edit;
+            int offset = document.getText().indexOf("'" + oldItem + "'") + 1;
+            WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+                document.replaceString(offset, offset + oldItem.length(), newItem);
+                PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+            });
+            item = newItem;
+
+            long patches = metrics.getCount(LanguageMetrics.Counter.MODEL_PATCH);
+            long start = System.nanoTime();
+            LanguageModel model = ReadAction.compute(service::getModel);
+            samples.add(System.nanoTime() - start);
+
+            assertEquals("only the edited file is patched", patches + 1, metrics.getCount(LanguageMetrics.Counter.MODEL_PATCH));
+            assertTrue(model.hasItem(category, newItem));
+            assertFalse(model.hasItem(category, oldItem));
+        }
+
+        Collections.sort(samples);
+        double update = samples.get(samples.size() / 2) / 1_000_000d;
+        // the index reads the whole edited file again, the model itself is only patched
+        double rebuild = Benchmarks.measureMedianMillis("model build from text, " + UPDATE_KEYS + " keys", UPDATE_EDITS, () -> createModel(document.getText()));
+        assertTrue(String.format("model update after document edit, %d keys: %.3f ms, build from text %.3f ms", UPDATE_KEYS, update, rebuild),
+            update <= rebuild * UPDATE_REBUILD_FACTOR);
+    }
+
+    public void testRetainedMemory() {
+        for (int[] scenario : SCENARIOS) {
+            String text = SyntheticLanguageFile.generate(scenario[0], scenario[1]);
+
+            long bytesPerKey = Benchmarks.measureRetainedHeap(() -> createModel(text)) / scenario[0];
+            assertTrue("memory held, " + describe(scenario) + ": " + bytesPerKey + " bytes/key, budget " + BYTES_PER_KEY_BUDGET,
+                bytesPerKey <= BYTES_PER_KEY_BUDGET);
+        }
+    }
+
+    /**
+     * Assert that the median run time of the operation on the large scenario stays within a
+     * constant factor of the small one.
+     */
+    private static void assertConstantTime(@NotNull String name, int @NotNull [] small, int @NotNull [] large, @NotNull Function<int[], Supplier<?>> operation) {
+        double smallMillis = Benchmarks.measureMedianMillis(name + ", " + describe(small), ITERATIONS, operation.apply(small));
+        double largeMillis = Benchmarks.measureMedianMillis(name + ", " + describe(large), ITERATIONS, operation.apply(large));
+        assertTrue(String.format("%s: %.4f ms at %s, %.4f ms at %s", name, smallMillis, describe(small), largeMillis, describe(large)),
+            largeMillis <= smallMillis * CONSTANT_GROWTH + NOISE_MILLIS);
+    }
+
+    @NotNull
+    private static String describe(int @NotNull [] scenario) {
+        return scenario[0] + " keys / " + scenario[1] + " categories";
+    }
+
+    @NotNull
+    private static String renameFirstItem(@NotNull String text) {
+        String item = "'" + SyntheticLanguageFile.itemName(0) + "'";
+        int offset = text.indexOf(item);
+        return text.substring(0, offset) + "'renamed_item'" + text.substring(offset + item.length());
+    }
+
+    @NotNull
+    private LanguageModel createModel(@NotNull String text) {
+        LightVirtualFile file = new LightVirtualFile(LanguageKeyIndex.ENGLISH_FILE_NAME, PhpFileType.INSTANCE, text);
+        LanguageTable table = new LanguageTable(file, LanguageFileParser.parse(getProject(), text));
+
+        return new LanguageModel(Collections.singletonList(table), Collections.emptyList());
+    }
+}
@@ -0,0 +1,39 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average run time and peak heap usage of one benchmarked operation.
+ */
+public final class Measurement {
+
+    private final String name;
+    private final long averageNanos;
+    private final long peakHeapBytes;
+
+    public Measurement(@NotNull String name, long averageNanos, long peakHeapBytes) {
+        this.name = name;
+        this.averageNanos = averageNanos;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public long getAverageNanos() {
+        return averageNanos;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.3f ms/run, peak heap %d KB", name, averageNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), peakHeapBytes / 1024);
+    }
+}
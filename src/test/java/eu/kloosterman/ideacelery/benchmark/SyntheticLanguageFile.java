@@ -0,0 +1,44 @@
+package eu.kloosterman.ideacelery.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Generates english-utf-8.php contents of a given size for the benchmark tests.
+ */
+public final class SyntheticLanguageFile {
+
+    private SyntheticLanguageFile() {
+    }
+
+    /**
+     * A $lang array with the given number of item keys spread evenly over the categories.
+     */
+    @NotNull
+    public static String generate(int keys, int categories) {
+        int itemsPerCategory = Math.max(1, keys / categories);
+        StringBuilder text = new StringBuilder(keys * 48);
+
+        text.append("<?php\n\n$lang = [\n");
+        for (int category = 0; category < categories; category++) {
+            text.append("    '").append(categoryName(category)).append("' => [\n");
+            for (int item = 0; item < itemsPerCategory; item++) {
+                text.append("        '").append(itemName(item)).append("' => 'Text of item ")
+                    .append(item).append(" in category ").append(category).append("',\n");
+            }
+            text.append("    ],\n");
+        }
+        text.append("];\n");
+
+        return text.toString();
+    }
+
+    @NotNull
+    public static String categoryName(int category) {
+        return "category_" + category;
+    }
+
+    @NotNull
+    public static String itemName(int item) {
+        return "item_" + item;
+    }
+}
@@ -0,0 +1,74 @@
+package eu.kloosterman.ideacelery.codevision;
+
+import com.intellij.codeInsight.codeVision.CodeVisionEntry;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.ScrollType;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.EditorTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Usage count hints above the keys of an english language file.
+ */
+public class LanguageUsagesCodeVisionProviderTest extends BasePlatformTestCase {
+
+    public void testUsageCounts() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php",
+            "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n];\n");
+        myFixture.addFileToProject("caller.php", "<?php\n\nLanguage::get('save', 'forms');\nLanguage::get('save', 'forms');\n");
+        myFixture.configureFromExistingVirtualFile(english.getVirtualFile());
+        EditorTestUtil.setEditorVisibleSize(myFixture.getEditor(), 80, 20);
+
+        Map<String, String> hints = computeHints();
+
+        assertEquals(Map.of("'forms'", "2 usages", "'save'", "2 usages", "'cancel'", "no usages"), hints);
+    }
+
+    public void testKeysScrolledIntoViewAreCounted() {
+        StringBuilder text = new StringBuilder("<?php\n\n$lang = [\n    'forms' => [\n");
+        for (int i = 0; i < 200; i++) {
+            text.append("        'item_").append(i).append("' => 'Item ").append(i).append("',\n");
+        }
+        text.append("    ],\n];\n");
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", text.toString());
+        myFixture.addFileToProject("caller.php", "<?php\n\nLanguage::get('item_199', 'forms');\n");
+        myFixture.configureFromExistingVirtualFile(english.getVirtualFile());
+        Editor editor = myFixture.getEditor();
+        EditorTestUtil.setEditorVisibleSize(editor, 80, 10);
+
+        assertContainsElements(computeHints().keySet(), "'item_0'");
+        assertDoesntContain(computeHints().keySet(), "'item_199'");
+
+        editor.getCaretModel().moveToOffset(text.indexOf("'item_199'"));
+        editor.getScrollingModel().scrollToCaret(ScrollType.CENTER);
+
+        Map<String, String> hints = computeHints();
+        assertEquals("1 usage", hints.get("'item_199'"));
+        assertDoesntContain(hints.keySet(), "'item_0'");
+    }
+
+    /**
+     * Hint text by the quoted key it is shown for.
+     */
+    @NotNull
+    private Map<String, String> computeHints() {
+        Editor editor = myFixture.getEditor();
+        List<Pair<TextRange, CodeVisionEntry>> entries = ReadAction.compute(() ->
+            new LanguageUsagesCodeVisionProvider().computeForEditor(editor, myFixture.getFile())
+        );
+
+        Map<String, String> hints = new HashMap<>();
+        for (Pair<TextRange, CodeVisionEntry> entry : entries) {
+            hints.put(entry.first.substring(editor.getDocument().getText()), entry.second.getLongPresentation());
+        }
+        return hints;
+    }
+}
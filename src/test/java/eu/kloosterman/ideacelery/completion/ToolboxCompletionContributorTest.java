@@ -0,0 +1,48 @@
+package eu.kloosterman.ideacelery.completion;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+
+import java.util.List;
+
+/**
+ * Completion only touches the language model for string arguments of Language::get().
+ */
+public class ToolboxCompletionContributorTest extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("languages/english-utf-8.php", "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n];\n");
+        // build the model up front, so a later request can only come from completion
+        ReadAction.run(() -> LanguageModelService.getInstance(getProject()).getModel());
+    }
+
+    public void testCompletionOutsideLanguageGetDoesNoLanguageWork() {
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        long modelRequests = metrics.getCount(LanguageMetrics.Counter.MODEL_REQUEST);
+        long indexQueries = metrics.getCount(LanguageMetrics.Timer.INDEX_QUERY);
+
+        myFixture.configureByText("caller.php", "<?php\n\nstr_replace('<caret>', 'forms', $value);\n");
+        myFixture.completeBasic();
+
+        assertEquals(modelRequests, metrics.getCount(LanguageMetrics.Counter.MODEL_REQUEST));
+        assertEquals(indexQueries, metrics.getCount(LanguageMetrics.Timer.INDEX_QUERY));
+    }
+
+    public void testCompletionInsideLanguageGetUsesModel() {
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        long modelRequests = metrics.getCount(LanguageMetrics.Counter.MODEL_REQUEST);
+
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('<caret>', 'forms');\n");
+        myFixture.completeBasic();
+
+        List<String> items = myFixture.getLookupElementStrings();
+        assertNotNull(items);
+        assertContainsElements(items, "save", "cancel");
+        assertTrue(metrics.getCount(LanguageMetrics.Counter.MODEL_REQUEST) > modelRequests);
+    }
+}
@@ -0,0 +1,28 @@
+package eu.kloosterman.ideacelery.folding;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import eu.kloosterman.ideacelery.language.LanguageModelService;
+
+/**
+ * Language::get() calls folded to their english text, collapsed by default.
+ */
+public class LanguageFoldingBuilderTest extends BasePlatformTestCase {
+
+    @Override
+    protected String getTestDataPath() {
+        return "src/test/testData/folding";
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("languages/english-utf-8.php", "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel this form',\n    ],\n];\n");
+        ReadAction.run(() -> LanguageModelService.getInstance(getProject()).getModel());
+    }
+
+    public void testFoldingWithCollapseStatus() {
+        myFixture.testFoldingWithCollapseStatus(getTestDataPath() + "/caller.php");
+    }
+}
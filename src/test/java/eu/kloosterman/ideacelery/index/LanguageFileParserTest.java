@@ -0,0 +1,120 @@
+package eu.kloosterman.ideacelery.index;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Categories, items, offsets and includes of every language file form the parser supports.
+ */
+public class LanguageFileParserTest extends BasePlatformTestCase {
+
+    public void testArrayLiteral() {
+        String text = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        \"cancel\" => \"Cancel\",\n    ],\n];\n";
+        Map<String, LanguageCategory> categories = LanguageFileParser.parse(getProject(), text);
+
+        assertSameElements(categories.keySet(), "forms");
+        LanguageCategory forms = categories.get("forms");
+        assertEquals(text.indexOf("'forms'"), forms.getOffset());
+        assertEquals(Map.of("save", text.indexOf("'save'"), "cancel", text.indexOf("\"cancel\"")), forms.getItems());
+        assertEquals(Map.of("save", "Save", "cancel", "Cancel"), forms.getTexts());
+    }
+
+    public void testArrayFunctionSyntax() {
+        String text = "<?php\n\n$lang = array(\n    'forms' => array(\n        'save' => 'Save',\n    ),\n);\n";
+        Map<String, LanguageCategory> categories = LanguageFileParser.parse(getProject(), text);
+
+        assertSameElements(categories.keySet(), "forms");
+        assertEquals(Map.of("save", text.indexOf("'save'")), categories.get("forms").getItems());
+    }
+
+    public void testCategoryAssignment() {
+        String text = "<?php\n\n$lang['forms'] = [\n    'save' => 'Save',\n];\n$lang['menu'] = ['home' => 'Home'];\n";
+        Map<String, LanguageCategory> categories = LanguageFileParser.parse(getProject(), text);
+
+        assertSameElements(categories.keySet(), "forms", "menu");
+        assertEquals(text.indexOf("'forms'"), categories.get("forms").getOffset());
+        assertEquals(Map.of("home", text.indexOf("'home'")), categories.get("menu").getItems());
+    }
+
+    public void testReturn() {
+        String text = "<?php\n\nreturn [\n    'forms' => [\n        'save' => 'Save',\n    ],\n];\n";
+        Map<String, LanguageCategory> categories = LanguageFileParser.parse(getProject(), text);
+
+        assertSameElements(categories.keySet(), "forms");
+        assertEquals(Map.of("save", text.indexOf("'save'")), categories.get("forms").getItems());
+    }
+
+    public void testArrayMerge() {
+        String text = "<?php\n\n$lang = array_merge($lang, [\n    'forms' => ['save' => 'Save'],\n], require 'parts/menu.php');\n$lang['help'] = ['about' => 'About'];\n";
+
+        assertSameElements(LanguageFileParser.parse(getProject(), text).keySet(), "forms", "help");
+        assertEquals(List.of(new LanguageInclude("parts/menu.php", text.indexOf("require"))), LanguageFileParser.parseIncludes(getProject(), text));
+    }
+
+    public void testRepeatedKeysKeepLastDefinition() {
+        String text = "<?php\n\n$lang = [\n    'forms' => ['save' => 'Save', 'cancel' => 'Cancel', 'save' => 'Store'],\n    'menu' => ['home' => 'Home'],\n    'forms' => ['save' => 'Save now', 'cancel' => 'Cancel' . $suffix, 'cancel' => $cancel],\n];\n";
+        Map<String, LanguageCategory> categories = LanguageFileParser.parse(getProject(), text);
+
+        LanguageCategory forms = categories.get("forms");
+        assertEquals(text.lastIndexOf("'forms'"), forms.getOffset());
+        assertEquals(Map.of("save", text.lastIndexOf("'save'"), "cancel", text.lastIndexOf("'cancel'")), forms.getItems());
+        assertEquals(Map.of("save", "Save now"), forms.getTexts());
+        assertSameElements(categories.keySet(), "forms", "menu");
+    }
+
+    public void testRepeatedItemInOneCategory() {
+        String text = "<?php\n\n$lang = [\n    'forms' => ['save' => 'Save', 'save' => 'Store'],\n];\n";
+        LanguageCategory forms = LanguageFileParser.parse(getProject(), text).get("forms");
+
+        assertEquals(Map.of("save", text.lastIndexOf("'save'")), forms.getItems());
+        assertEquals(Map.of("save", "Store"), forms.getTexts());
+    }
+
+    public void testNonConstantTexts() {
+        String text = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save' . $suffix,\n        'cancel' => \"Cancel $name\",\n    ],\n];\n";
+        LanguageCategory forms = LanguageFileParser.parse(getProject(), text).get("forms");
+
+        assertSameElements(forms.getItems().keySet(), "save", "cancel");
+        assertEmpty(forms.getTexts().keySet());
+    }
+
+    public void testIncludeForms() {
+        assertIncludes("require 'menu.php';", "menu.php");
+        assertIncludes("require_once('menu.php');", "menu.php");
+        assertIncludes("include \"parts/menu.php\";", "parts/menu.php");
+        assertIncludes("include_once __DIR__ . '/parts/menu.php';", "parts/menu.php");
+        assertIncludes("require dirname(__FILE__) . '/menu.php';", "menu.php");
+    }
+
+    public void testDirnameLevels() {
+        assertIncludes("require dirname(__DIR__) . '/shared/menu.php';", "../shared/menu.php");
+        assertIncludes("require dirname(__DIR__, 2) . '/shared/menu.php';", "../../shared/menu.php");
+        assertIncludes("require dirname(__FILE__, 2) . '/shared/menu.php';", "../shared/menu.php");
+        assertIncludes("require dirname(dirname(__DIR__)) . '/shared/menu.php';", "../../shared/menu.php");
+        assertIncludes("require dirname(dirname(__FILE__, 2), 2) . '/shared/menu.php';", "../../../shared/menu.php");
+    }
+
+    public void testNonConstantIncludesAreDropped() {
+        assertIncludes("require $path;");
+        assertIncludes("require __DIR__ . $name . '.php';");
+        assertIncludes("require dirname($path) . '/menu.php';");
+        assertIncludes("require dirname(__DIR__, $levels) . '/menu.php';");
+        assertIncludes("require __FILE__;");
+    }
+
+    public void testStatementAfterNonConstantInclude() {
+        String text = "<?php\n\n$lang = array_merge($lang, require dirname($path) . '/menu.php', ['forms' => ['save' => 'Save']]);\n$lang['help'] = ['about' => 'About'];\n";
+
+        assertSameElements(LanguageFileParser.parse(getProject(), text).keySet(), "forms", "help");
+        assertEmpty(LanguageFileParser.parseIncludes(getProject(), text));
+    }
+
+    private void assertIncludes(@NotNull String statement, String @NotNull ... paths) {
+        String text = "<?php\n\n" + statement + "\n";
+        List<String> parsed = LanguageFileParser.parseIncludes(getProject(), text).stream().map(LanguageInclude::getPath).toList();
+        assertEquals(statement, List.of(paths), parsed);
+    }
+}
@@ -0,0 +1,51 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * English keys missing in the dutch language file, on Language::get() calls and in the english file itself.
+ */
+public class MissingTranslationInspectionTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n    'menu' => [\n        'home' => 'Home',\n    ],\n];\n";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.enableInspections(MissingTranslationInspection.class);
+        myFixture.addFileToProject("languages/dutch-utf-8.php", "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Opslaan',\n    ],\n];\n");
+    }
+
+    public void testMissingKeysOnCalls() {
+        myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.configureByText("caller.php", "<?php\n\n"
+            + "Language::get('save', 'forms');\n"
+            + "Language::get(<warning descr=\"'forms.cancel' is missing in locale(s): dutch\">'cancel'</warning>, 'forms');\n"
+            + "Language::get('home', <warning descr=\"'menu' is missing in locale(s): dutch\">'menu'</warning>);\n"
+            + "Language::get('unknown', 'forms');\n");
+
+        myFixture.checkHighlighting(true, false, false);
+    }
+
+    public void testMissingKeysInEnglishFile() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.configureFromExistingVirtualFile(english.getVirtualFile());
+
+        assertSameElements(getWarnings(),
+            "'forms.cancel' is missing in locale(s): dutch",
+            "'menu' is missing in locale(s): dutch",
+            "'menu.home' is missing in locale(s): dutch");
+    }
+
+    @NotNull
+    private List<String> getWarnings() {
+        return myFixture.doHighlighting(HighlightSeverity.WARNING).stream().map(HighlightInfo::getDescription).toList();
+    }
+}
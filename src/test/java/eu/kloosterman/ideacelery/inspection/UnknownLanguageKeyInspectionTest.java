@@ -0,0 +1,52 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+/**
+ * Unknown categories and items of Language::get() calls, and the fixes replacing them with similar keys.
+ */
+public class UnknownLanguageKeyInspectionTest extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.enableInspections(UnknownLanguageKeyInspection.class);
+        myFixture.addFileToProject("languages/english-utf-8.php",
+            "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n    'menu' => [\n        'home' => 'Home',\n    ],\n];\n");
+    }
+
+    public void testUnknownKeys() {
+        myFixture.configureByText("caller.php", "<?php\n\n"
+            + "Language::get('save', 'forms');\n"
+            + "Language::get(<warning descr=\"Unknown item 'sav' in language category 'forms'\">'sav'</warning>, 'forms');\n"
+            + "Language::get('home', <warning descr=\"Unknown language category 'forsm'\">'forsm'</warning>);\n"
+            // the item of an unknown category is not reported separately
+            + "Language::get('item', <warning descr=\"Unknown language category 'unknown'\">'unknown'</warning>);\n"
+            + "Language::get('', 'forms');\n");
+
+        myFixture.checkHighlighting(true, false, false);
+    }
+
+    public void testReplaceItem() {
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('sa<caret>v', 'forms');\n");
+
+        myFixture.launchAction(myFixture.findSingleIntention("Replace with 'save'"));
+
+        myFixture.checkResult("<?php\n\nLanguage::get('save', 'forms');\n");
+    }
+
+    public void testReplaceCategory() {
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get(\"home\", \"for<caret>sm\");\n");
+
+        myFixture.launchAction(myFixture.findSingleIntention("Replace with 'forms'"));
+
+        myFixture.checkResult("<?php\n\nLanguage::get(\"home\", \"forms\");\n");
+    }
+
+    public void testNoFixWithoutSimilarKeys() {
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('some<caret>thing', 'forms');\n");
+
+        assertEmpty(myFixture.filterAvailableIntentions("Replace with"));
+    }
+}
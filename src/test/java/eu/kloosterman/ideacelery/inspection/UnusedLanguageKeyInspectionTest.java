@@ -0,0 +1,66 @@
+package eu.kloosterman.ideacelery.inspection;
+
+import com.intellij.codeInsight.daemon.impl.HighlightInfo;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Keys of the english language file that no Language::get() call of the same application uses.
+ */
+public class UnusedLanguageKeyInspectionTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n    'menu' => [\n        'home' => 'Home',\n    ],\n];\n";
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.enableInspections(UnusedLanguageKeyInspection.class);
+    }
+
+    public void testUnusedKeys() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("caller.php", "<?php\n\nLanguage::get('save', 'forms');\n");
+        myFixture.configureFromExistingVirtualFile(english.getVirtualFile());
+
+        List<HighlightInfo> infos = getUnusedKeys();
+
+        // the item of the unused category is covered by the category
+        assertSameElements(infos.stream().map(HighlightInfo::getDescription).toList(),
+            "Language key 'forms.cancel' is not used by any Language::get() call",
+            "Language key 'menu' is not used by any Language::get() call");
+        for (HighlightInfo info : infos) {
+            assertEquals(HighlightSeverity.WEAK_WARNING, info.getSeverity());
+        }
+        assertSameElements(infos.stream().map(HighlightInfo::getText).toList(), "'cancel'", "'menu'");
+    }
+
+    public void testCallsOfOtherApplicationDoNotCount() {
+        PsiFile english = myFixture.addFileToProject("first/languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("first/caller.php", "<?php\n\nLanguage::get('save', 'forms');\nLanguage::get('home', 'menu');\n");
+        myFixture.addFileToProject("second/languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("second/caller.php", "<?php\n\nLanguage::get('cancel', 'forms');\n");
+        myFixture.configureFromExistingVirtualFile(english.getVirtualFile());
+
+        assertSameElements(getUnusedKeys().stream().map(HighlightInfo::getDescription).toList(),
+            "Language key 'forms.cancel' is not used by any Language::get() call");
+    }
+
+    public void testCallingFilesAreNotInspected() {
+        myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('unused', 'other');\n");
+
+        assertEmpty(getUnusedKeys());
+    }
+
+    @NotNull
+    private List<HighlightInfo> getUnusedKeys() {
+        return myFixture.doHighlighting().stream()
+            .filter(info -> info.getDescription() != null && info.getDescription().startsWith("Language key "))
+            .toList();
+    }
+}
@@ -0,0 +1,85 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.application.WriteAction;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tables built by the service from the indexed language files.
+ */
+public class LanguageModelServiceTest extends BasePlatformTestCase {
+
+    public void testIncludesMergeInRuntimeOrder() {
+        myFixture.addFileToProject("languages/english-utf-8.php", "<?php\n\n"
+            + "$lang = [\n    'forms' => ['save' => 'Save'],\n    'menu' => ['home' => 'Home'],\n];\n"
+            + "$lang = array_merge($lang, require __DIR__ . '/parts/forms.php');\n"
+            + "$lang['menu'] = ['start' => 'Start'];\n"
+            + "$lang = array_merge($lang, require dirname(__DIR__) . '/languages/parts/help.php');\n"
+            + "$lang = array_merge($lang, require dirname(__DIR__) . '/shared/extra.php');\n");
+        myFixture.addFileToProject("languages/parts/forms.php", "<?php\n\nreturn [\n    'forms' => ['submit' => 'Submit'],\n    'menu' => ['back' => 'Back'],\n];\n");
+        myFixture.addFileToProject("languages/parts/help.php", "<?php\n\nreturn ['help' => ['about' => 'About']];\n");
+        myFixture.addFileToProject("shared/extra.php", "<?php\n\nreturn ['extra' => ['more' => 'More']];\n");
+
+        LanguageModel model = getModel();
+
+        // array_merge() replaces a whole category, later statements win
+        assertTrue(model.hasItem("forms", "submit"));
+        assertFalse(model.hasItem("forms", "save"));
+        assertTrue(model.hasItem("menu", "start"));
+        assertFalse(model.hasItem("menu", "back"));
+        assertFalse(model.hasItem("menu", "home"));
+        assertTrue(model.hasItem("help", "about"));
+        // outside the languages directory, not indexed
+        assertFalse(model.hasCategory("extra"));
+
+        LanguageTable table = model.getTables().get(0);
+        assertEquals("forms.php", table.getFile("forms").getName());
+        assertEquals("english-utf-8.php", table.getFile("menu").getName());
+        assertEquals(3, table.getFiles().size());
+    }
+
+    public void testDeletingLanguagesDirectoryRebuildsModel() throws Exception {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", "<?php\n\n$lang = ['forms' => ['save' => 'Save']];\n");
+        assertTrue(getModel().hasCategory("forms"));
+
+        VirtualFile directory = english.getVirtualFile().getParent();
+        WriteAction.runAndWait(() -> directory.delete(this));
+
+        LanguageModel model = getModel();
+        assertEmpty(model.getTables());
+        assertFalse(model.hasCategory("forms"));
+    }
+
+    public void testDeletingApplicationDirectoryRebuildsModel() throws Exception {
+        PsiFile english = myFixture.addFileToProject("first/languages/english-utf-8.php", "<?php\n\n$lang = ['forms' => ['save' => 'Save']];\n");
+        myFixture.addFileToProject("second/languages/english-utf-8.php", "<?php\n\n$lang = ['menu' => ['home' => 'Home']];\n");
+        assertSize(2, getModel().getTables());
+
+        VirtualFile application = english.getVirtualFile().getParent().getParent();
+        WriteAction.runAndWait(() -> application.delete(this));
+
+        LanguageModel model = getModel();
+        assertSize(1, model.getTables());
+        assertTrue(model.getTables().get(0).getFile().isValid());
+        assertFalse(model.hasCategory("forms"));
+        assertTrue(model.hasCategory("menu"));
+    }
+
+    public void testRenamingLanguagesDirectoryRebuildsModel() throws Exception {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", "<?php\n\n$lang = ['forms' => ['save' => 'Save']];\n");
+        assertTrue(getModel().hasCategory("forms"));
+
+        VirtualFile directory = english.getVirtualFile().getParent();
+        WriteAction.runAndWait(() -> directory.rename(this, "old-languages"));
+
+        assertEmpty(getModel().getTables());
+    }
+
+    @NotNull
+    private LanguageModel getModel() {
+        return ReadAction.compute(() -> LanguageModelService.getInstance(getProject()).getModel());
+    }
+}
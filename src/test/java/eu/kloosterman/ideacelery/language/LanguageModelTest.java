@@ -0,0 +1,70 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Models scoped to one application of a project that holds two of them.
+ */
+public class LanguageModelTest extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        myFixture.addFileToProject("first/languages/english-utf-8.php", "<?php\n\n$lang = ['forms' => ['save' => 'Save']];\n");
+        myFixture.addFileToProject("second/languages/english-utf-8.php", "<?php\n\n$lang = ['menu' => ['home' => 'Home'], 'forms' => ['cancel' => 'Cancel']];\n");
+    }
+
+    public void testScopedModelOfEachApplication() {
+        LanguageModel first = getModel(myFixture.addFileToProject("first/caller.php", "<?php\n"));
+        LanguageModel second = getModel(myFixture.addFileToProject("second/lib/deep/caller.php", "<?php\n"));
+
+        assertSize(1, first.getTables());
+        assertTrue(first.hasItem("forms", "save"));
+        assertFalse(first.hasItem("forms", "cancel"));
+        assertFalse(first.hasCategory("menu"));
+
+        assertSize(1, second.getTables());
+        assertTrue(second.hasItem("forms", "cancel"));
+        assertFalse(second.hasItem("forms", "save"));
+        assertTrue(second.hasCategory("menu"));
+    }
+
+    public void testScopedModelIsCachedPerRoot() {
+        PsiFile caller = myFixture.addFileToProject("first/caller.php", "<?php\n");
+        PsiFile other = myFixture.addFileToProject("first/lib/other.php", "<?php\n");
+
+        assertSame(getModel(caller), getModel(other));
+    }
+
+    public void testFileOutsideApplicationsSeesContentRoot() {
+        LanguageModel model = getModel(myFixture.addFileToProject("caller.php", "<?php\n"));
+
+        assertSize(2, model.getTables());
+        assertTrue(model.hasItem("forms", "save"));
+        assertTrue(model.hasItem("forms", "cancel"));
+        assertTrue(model.hasCategory("menu"));
+    }
+
+    public void testSingleApplicationIsNotScoped() {
+        LanguageTable second = ReadAction.compute(() -> LanguageModelService.getInstance(getProject()).getModel()).getTables().stream()
+            .filter(table -> table.getFile().getPath().contains("/second/"))
+            .findFirst()
+            .orElseThrow();
+        LanguageModel model = new LanguageModel(List.of(second), Collections.emptyList());
+        PsiFile caller = myFixture.addFileToProject("second/caller.php", "<?php\n");
+
+        assertSame(model, model.getScopedModel(caller.getVirtualFile(), null));
+    }
+
+    @NotNull
+    private LanguageModel getModel(@NotNull PsiFile file) {
+        return ReadAction.compute(() -> LanguageModelService.getInstance(getProject()).getModel(file.getVirtualFile()));
+    }
+}
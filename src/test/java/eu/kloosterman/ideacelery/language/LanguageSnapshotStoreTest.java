@@ -0,0 +1,110 @@
+package eu.kloosterman.ideacelery.language;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.DumbModeTestUtils;
+import com.intellij.testFramework.ServiceContainerUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.diagnostics.LanguageMetrics;
+import eu.kloosterman.ideacelery.reference.LanguageReference;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The snapshot of the english tables on disk and the completion and resolve it serves in dumb mode.
+ */
+public class LanguageSnapshotStoreTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n];\n$lang = array_merge($lang, require __DIR__ . '/parts/menu.php');\n";
+    private static final String MENU = "<?php\n\nreturn ['menu' => ['home' => 'Home']];\n";
+
+    private PsiFile english;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("languages/parts/menu.php", MENU);
+        LanguageModel model = ReadAction.compute(() -> LanguageModelService.getInstance(getProject()).getModel());
+        new LanguageSnapshotStore(getProject()).write(model);
+    }
+
+    public void testRoundTrip() {
+        LanguageModel stored = new LanguageSnapshotStore(getProject()).read();
+        assertNotNull(stored);
+
+        assertSize(1, stored.getTables());
+        LanguageTable table = stored.getTables().get(0);
+        assertEquals(english.getVirtualFile(), table.getFile());
+        assertEquals("menu.php", table.getFile("menu").getName());
+        assertEquals(ENGLISH.indexOf("'forms'"), table.getCategoryOffset("forms").intValue());
+        assertEquals(ENGLISH.indexOf("'cancel'"), table.getItemOffset("forms", "cancel").intValue());
+        assertEquals(MENU.indexOf("'home'"), table.getItemOffset("menu", "home").intValue());
+        assertEquals(Map.of(LanguageKey.item("forms", "save"), "Save"), stored.getTexts(List.of(LanguageKey.item("forms", "save"))));
+        assertTrue(stored.hasItem("menu", "home"));
+    }
+
+    public void testCompletionAndResolveInDumbMode() {
+        // a service that has not built a model yet, as right after opening the project
+        ServiceContainerUtil.replaceService(getProject(), LanguageModelService.class, new LanguageModelService(getProject()), getTestRootDisposable());
+        LanguageMetrics metrics = LanguageMetrics.getInstance();
+        long builds = metrics.getCount(LanguageMetrics.Counter.MODEL_BUILD);
+
+        DumbModeTestUtils.runInDumbModeSynchronously(getProject(), () -> {
+            myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('<caret>', 'forms');\nLanguage::get('home', 'menu');\n");
+            myFixture.completeBasic();
+
+            List<String> items = myFixture.getLookupElementStrings();
+            assertNotNull(items);
+            assertContainsElements(items, "save", "cancel");
+
+            PsiElement home = resolve(findLiteral(myFixture.getFile(), "'home'"), 0, "menu");
+            assertNotNull(home);
+            assertEquals("menu.php", home.getContainingFile().getName());
+            assertEquals(MENU.indexOf("'home'"), home.getTextOffset());
+        });
+
+        assertEquals(builds, metrics.getCount(LanguageMetrics.Counter.MODEL_BUILD));
+    }
+
+    public void testOutdatedOffsetsDoNotResolve() {
+        Document document = PsiDocumentManager.getInstance(getProject()).getDocument(english);
+        assertNotNull(document);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+            document.insertString(ENGLISH.indexOf("$lang"), "// moved\n");
+            PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+        });
+        ServiceContainerUtil.replaceService(getProject(), LanguageModelService.class, new LanguageModelService(getProject()), getTestRootDisposable());
+
+        DumbModeTestUtils.runInDumbModeSynchronously(getProject(), () -> {
+            PsiFile caller = myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('save', 'forms');\n");
+
+            // the snapshot still knows the key, but navigation checks the literal at its offset
+            assertTrue(LanguageModelService.getInstance(getProject()).getModel().hasItem("forms", "save"));
+            assertNull(resolve(findLiteral(caller, "'save'"), 0, "forms"));
+        });
+    }
+
+    private static PsiElement resolve(@NotNull StringLiteralExpression literal, int parameterIndex, @NotNull String category) {
+        return ReadAction.compute(() -> new LanguageReference(literal, parameterIndex, category).resolve());
+    }
+
+    @NotNull
+    private static StringLiteralExpression findLiteral(@NotNull PsiFile file, @NotNull String text) {
+        int offset = file.getText().indexOf(text);
+        assertTrue(text, offset >= 0);
+
+        StringLiteralExpression literal = PsiTreeUtil.getParentOfType(file.findElementAt(offset + 1), StringLiteralExpression.class, false);
+        assertNotNull(text, literal);
+        return literal;
+    }
+}
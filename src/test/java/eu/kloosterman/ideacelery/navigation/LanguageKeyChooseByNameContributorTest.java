@@ -0,0 +1,71 @@
+package eu.kloosterman.ideacelery.navigation;
+
+import com.intellij.navigation.NavigationItem;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.indexing.FindSymbolParameters;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Categories and items of the english language files in Go to Symbol.
+ */
+public class LanguageKeyChooseByNameContributorTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n    ],\n    'app.menu' => [\n        'home' => 'Home',\n    ],\n];\n";
+
+    private final LanguageKeyChooseByNameContributor contributor = new LanguageKeyChooseByNameContributor();
+
+    public void testNames() {
+        myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+
+        CommonProcessors.CollectProcessor<String> names = new CommonProcessors.CollectProcessor<>();
+        ReadAction.run(() -> contributor.processNames(names, GlobalSearchScope.projectScope(getProject()), null));
+
+        assertSameElements(names.getResults(), "forms", "forms.save", "app.menu", "app.menu.home");
+    }
+
+    public void testNavigateToItem() {
+        myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+
+        // the category holds a dot itself
+        List<NavigationItem> items = findElements("app.menu.home");
+        assertSize(1, items);
+        assertEquals("app.menu.home", items.get(0).getName());
+
+        items.get(0).navigate(true);
+
+        Editor editor = FileEditorManager.getInstance(getProject()).getSelectedTextEditor();
+        assertNotNull(editor);
+        assertEquals("english-utf-8.php", editor.getVirtualFile().getName());
+        assertEquals(ENGLISH.indexOf("'home'"), editor.getCaretModel().getOffset());
+    }
+
+    public void testKeyOfEveryApplication() {
+        myFixture.addFileToProject("first/languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("second/languages/english-utf-8.php", ENGLISH);
+
+        List<NavigationItem> items = findElements("forms");
+
+        assertSize(2, items);
+        assertSameElements(items.stream().map(item -> item.getPresentation().getLocationString().contains("first") ? "first" : "second").toList(), "first", "second");
+    }
+
+    public void testUnknownName() {
+        myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+
+        assertEmpty(findElements("forms.delete"));
+    }
+
+    @NotNull
+    private List<NavigationItem> findElements(@NotNull String name) {
+        CommonProcessors.CollectProcessor<NavigationItem> items = new CommonProcessors.CollectProcessor<>();
+        ReadAction.run(() -> contributor.processElementsWithName(name, items, FindSymbolParameters.simple(getProject(), false)));
+        return List.copyOf(items.getResults());
+    }
+}
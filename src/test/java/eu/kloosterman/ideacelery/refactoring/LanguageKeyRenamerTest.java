@@ -0,0 +1,163 @@
+package eu.kloosterman.ideacelery.refactoring;
+
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.actionSystem.impl.SimpleDataContext;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.TestDialog;
+import com.intellij.openapi.ui.TestDialogManager;
+import com.intellij.openapi.ui.TestInputDialog;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renames of categories and items across the english and dutch language files and the
+ * Language::get() calls of one application.
+ */
+public class LanguageKeyRenamerTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n    'menu' => [\n        'save' => 'Save menu',\n    ],\n];\n";
+    private static final String DUTCH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Opslaan',\n    ],\n];\n";
+    private static final String CALLER = "<?php\n\nLanguage::get('save', 'forms');\nLanguage::get('save', 'menu');\n";
+
+    private final List<String> errors = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestDialogManager.setTestDialog(message -> {
+            errors.add(message);
+            return Messages.OK;
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            TestDialogManager.setTestDialog(TestDialog.DEFAULT);
+            TestDialogManager.setTestInputDialog(TestInputDialog.DEFAULT);
+        } catch (Throwable e) {
+            addSuppressedException(e);
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testRenameItemFromCall() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        PsiFile dutch = myFixture.addFileToProject("languages/dutch-utf-8.php", DUTCH);
+        myFixture.configureByText("caller.php", "<?php\n\nLanguage::get('sa<caret>ve', 'forms');\nLanguage::get('save', 'menu');\n");
+        TestDialogManager.setTestInputDialog(message -> "store");
+
+        LanguageKeyRenameHandler handler = new LanguageKeyRenameHandler();
+        DataContext dataContext = SimpleDataContext.builder()
+            .add(CommonDataKeys.EDITOR, myFixture.getEditor())
+            .add(CommonDataKeys.PSI_FILE, myFixture.getFile())
+            .build();
+        assertTrue(handler.isAvailableOnDataContext(dataContext));
+        handler.invoke(getProject(), myFixture.getEditor(), myFixture.getFile(), dataContext);
+        PlatformTestUtil.dispatchAllEventsInIdeEventQueue();
+
+        assertEmpty(errors);
+        assertEquals(ENGLISH.replace("'save' => 'Save',", "'store' => 'Save',"), getText(english));
+        assertEquals(DUTCH.replace("'save'", "'store'"), getText(dutch));
+        // the item of the other category keeps its name
+        assertEquals(CALLER.replace("'save', 'forms'", "'store', 'forms'"), getText(myFixture.getFile()));
+    }
+
+    public void testRenameCategory() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        PsiFile dutch = myFixture.addFileToProject("languages/dutch-utf-8.php", DUTCH);
+        PsiFile caller = myFixture.addFileToProject("caller.php", CALLER);
+
+        rename(findLiteral(english, "'forms'"), "form");
+
+        assertEmpty(errors);
+        assertEquals(ENGLISH.replace("'forms'", "'form'"), getText(english));
+        assertEquals(DUTCH.replace("'forms'", "'form'"), getText(dutch));
+        assertEquals(CALLER.replace("'forms'", "'form'"), getText(caller));
+    }
+
+    public void testRenameToExistingNameIsRejected() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        PsiFile caller = myFixture.addFileToProject("caller.php", CALLER);
+
+        rename(findLiteral(caller, "'save'"), "cancel");
+
+        assertSize(1, errors);
+        assertTrue(errors.get(0), errors.get(0).contains("cancel"));
+        assertEquals(ENGLISH, getText(english));
+        assertEquals(CALLER, getText(caller));
+    }
+
+    public void testRenameSkipsOtherApplication() {
+        PsiFile english = myFixture.addFileToProject("first/languages/english-utf-8.php", ENGLISH);
+        PsiFile caller = myFixture.addFileToProject("first/caller.php", CALLER);
+        PsiFile otherEnglish = myFixture.addFileToProject("second/languages/english-utf-8.php", ENGLISH);
+        PsiFile otherCaller = myFixture.addFileToProject("second/caller.php", CALLER);
+
+        rename(findLiteral(caller, "'save'"), "store");
+
+        assertEmpty(errors);
+        assertEquals(ENGLISH.replace("'save' => 'Save',", "'store' => 'Save',"), getText(english));
+        assertEquals(CALLER.replace("'save', 'forms'", "'store', 'forms'"), getText(caller));
+        assertEquals(ENGLISH, getText(otherEnglish));
+        assertEquals(CALLER, getText(otherCaller));
+    }
+
+    public void testRenameIsAbortedWhenFileChanges() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        PsiFile caller = myFixture.addFileToProject("caller.php", CALLER);
+
+        LanguageKeyRenamer renamer = new LanguageKeyRenamer(getProject(), findLiteral(caller, "'save'"), "store");
+        LanguageKeyRenamer.Rename rename = ReadAction.compute(() -> renamer.collectEdits(new EmptyProgressIndicator()));
+
+        // edited between the background search and the write command
+        Document document = getDocument(caller);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(document.getTextLength(), "\n"));
+        renamer.apply(rename);
+
+        assertSize(1, errors);
+        assertEquals(ENGLISH, getText(english));
+        assertEquals(CALLER + "\n", getText(caller));
+    }
+
+    private void rename(@NotNull StringLiteralExpression literal, @NotNull String newName) {
+        LanguageKeyRenamer.rename(getProject(), literal, newName);
+        PlatformTestUtil.dispatchAllEventsInIdeEventQueue();
+    }
+
+    @NotNull
+    private static StringLiteralExpression findLiteral(@NotNull PsiFile file, @NotNull String text) {
+        int offset = file.getText().indexOf(text);
+        assertTrue(text, offset >= 0);
+
+        StringLiteralExpression literal = PsiTreeUtil.getParentOfType(file.findElementAt(offset + 1), StringLiteralExpression.class, false);
+        assertNotNull(text, literal);
+        return literal;
+    }
+
+    @NotNull
+    private static String getText(@NotNull PsiFile file) {
+        return getDocument(file).getText();
+    }
+
+    @NotNull
+    private static Document getDocument(@NotNull PsiFile file) {
+        Document document = FileDocumentManager.getInstance().getDocument(file.getVirtualFile());
+        assertNotNull(document);
+        return document;
+    }
+}
@@ -0,0 +1,71 @@
+package eu.kloosterman.ideacelery.search;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import eu.kloosterman.ideacelery.reference.LanguageReference;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Usages of the keys of english-utf-8.php, found through the usage index.
+ */
+public class LanguageKeyReferencesSearcherTest extends BasePlatformTestCase {
+
+    private static final String ENGLISH = "<?php\n\n$lang = [\n    'forms' => [\n        'save' => 'Save',\n        'cancel' => 'Cancel',\n    ],\n    'menu' => [\n        'save' => 'Save menu',\n    ],\n];\n";
+    private static final String CALLER = "<?php\n\nLanguage::get('save', 'forms');\nLanguage::get('save', 'menu');\nLanguage::get('cancel', 'forms');\n";
+
+    public void testFindUsages() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("caller.php", CALLER);
+        myFixture.addFileToProject("other.php", "<?php\n\nLanguage::get('save', 'forms');\n");
+
+        List<String> usages = findUsages(findLiteral(english, "'save'"));
+
+        // the item of the menu category only shares its name
+        assertSameElements(usages, "caller.php:" + CALLER.indexOf("'save'"), "other.php:" + "<?php\n\nLanguage::get(".length());
+    }
+
+    public void testFindCategoryUsages() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("caller.php", CALLER);
+
+        assertSameElements(findUsages(findLiteral(english, "'forms'")),
+            "caller.php:" + CALLER.indexOf("'forms'"), "caller.php:" + CALLER.lastIndexOf("'forms'"));
+    }
+
+    public void testUnusedKeyHasNoUsages() {
+        PsiFile english = myFixture.addFileToProject("languages/english-utf-8.php", ENGLISH);
+        myFixture.addFileToProject("caller.php", "<?php\n\nLanguage::get('save', 'forms');\n");
+
+        assertEmpty(findUsages(findLiteral(english, "'cancel'")));
+    }
+
+    /**
+     * Usages as "file:offset" of the referencing literal.
+     */
+    @NotNull
+    private List<String> findUsages(@NotNull StringLiteralExpression target) {
+        return ReadAction.compute(() -> ReferencesSearch.search(target, GlobalSearchScope.projectScope(getProject())).findAll().stream()
+            .filter(reference -> reference instanceof LanguageReference)
+            .map(PsiReference::getElement)
+            .map(element -> element.getContainingFile().getName() + ":" + element.getTextOffset())
+            .toList());
+    }
+
+    @NotNull
+    private static StringLiteralExpression findLiteral(@NotNull PsiFile file, @NotNull String text) {
+        int offset = file.getText().indexOf(text);
+        assertTrue(text, offset >= 0);
+
+        StringLiteralExpression literal = PsiTreeUtil.getParentOfType(file.findElementAt(offset + 1), StringLiteralExpression.class, false);
+        assertNotNull(text, literal);
+        return literal;
+    }
+}
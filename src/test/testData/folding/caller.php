@@ -0,0 +1,6 @@
+<?php
+
+echo <fold text='"Save"' expand='false'>Language::get('save', 'forms')</fold>;
+echo <fold text='"Cancel this form"' expand='false'>Language::get("cancel", "forms")</fold>;
+echo Language::get('unknown', 'forms');
+echo Language::get($item, 'forms');